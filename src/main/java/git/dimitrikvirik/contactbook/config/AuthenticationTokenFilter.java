@@ -1,27 +1,24 @@
 package git.dimitrikvirik.contactbook.config;
 
-import git.dimitrikvirik.contactbook.model.security.UserPrincipal;
 import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class AuthenticationTokenFilter extends OncePerRequestFilter {
 
@@ -31,30 +28,17 @@ public class AuthenticationTokenFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, @NotNull HttpServletResponse response, @NotNull FilterChain filterChain) throws ServletException, IOException {
 
 
-        String header = request.getHeader("Authorization");
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
 
-        if (header != null && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
-            Claims claims = jwtTokenUtil.getClaims(token);
-            List<GrantedAuthority> scopes = getGrantedAuthorities(claims);
-            String username = claims.get("username", String.class);
-            PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(
-                    new UserPrincipal(claims.getSubject(), username),
-                    null,
-                    scopes);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (header != null && header.startsWith(JwtTokenUtil.BEARER_PREFIX)) {
+            try {
+                SecurityContextHolder.getContext().setAuthentication(jwtTokenUtil.getAuthentication(header));
+            } catch (ResponseStatusException e) {
+                // expired or revoked token
+                response.sendError(e.getStatusCode().value(), e.getReason());
+                return;
+            }
         }
         filterChain.doFilter(request, response);
     }
-
-
-    @SuppressWarnings("unchecked")
-    private List<GrantedAuthority> getGrantedAuthorities(Claims claims) {
-        return ((List<String>) claims.get("scopes",
-                //ParameterizedTypeReference.forType(ArrayList.class) string
-                ArrayList.class
-        )).stream().map(
-                authority -> (GrantedAuthority) () -> authority
-        ).toList();
-    }
 }
@@ -0,0 +1,31 @@
+package git.dimitrikvirik.contactbook.config;
+
+import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link AuthenticationTokenFilter} for WebFlux. Not a bean, so that it only runs inside the security filter chain.
+ */
+@RequiredArgsConstructor
+public class AuthenticationTokenWebFilter implements WebFilter {
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(JwtTokenUtil.BEARER_PREFIX)) {
+            return Mono.fromCallable(() -> jwtTokenUtil.getAuthentication(header))
+                    .flatMap(authentication -> chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)));
+        }
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,77 @@
+package git.dimitrikvirik.contactbook.config;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Explains the contact book listing queries at startup and warns when one of them is not
+ * served by an index, i.e. its winning plan contains a collection scan or an in-memory sort.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "contactBook.verifyIndexes", havingValue = "true", matchIfMissing = true)
+public class ContactBookIndexVerifier {
+
+    private static final Set<String> UNINDEXED_STAGES = Set.of("COLLSCAN", "SORT");
+
+    private static final Map<String, Document> LISTING_SORTS = new LinkedHashMap<>();
+
+    static {
+        LISTING_SORTS.put("unsorted", new Document());
+        LISTING_SORTS.put("_id", new Document("_id", 1));
+        LISTING_SORTS.put("lastname,firstname", new Document("lastname", 1).append("firstname", 1));
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyListingIndexes() {
+        String collectionName = mongoTemplate.getCollectionName(ContactBookEntity.class);
+        Document filter = new Document("ownerUserId", "index-verification");
+        LISTING_SORTS.forEach((name, sort) -> {
+            try {
+                Document explain = mongoTemplate.getCollection(collectionName).find(filter).sort(sort).explain();
+                Set<String> stages = new LinkedHashSet<>();
+                collectStages(explain.get("queryPlanner", Document.class), stages);
+                stages.retainAll(UNINDEXED_STAGES);
+                if (stages.isEmpty()) {
+                    log.debug("Contact book listing sorted by {} is covered by an index", name);
+                } else {
+                    log.warn("Contact book listing sorted by {} is not covered by an index, winning plan uses {}", name, stages);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not explain contact book listing sorted by {}: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    private static void collectStages(Object node, Set<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.forEach((key, value) -> {
+                if (!"rejectedPlans".equals(key)) {
+                    collectStages(value, stages);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+}
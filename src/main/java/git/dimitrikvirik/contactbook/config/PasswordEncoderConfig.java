@@ -0,0 +1,16 @@
+package git.dimitrikvirik.contactbook.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${passwordHashing.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+}
@@ -1,20 +1,21 @@
 package git.dimitrikvirik.contactbook.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
+@Profile("!reactive")
 @RequiredArgsConstructor
 @EnableMethodSecurity
 public class SpringSecurityConfig {
@@ -35,6 +36,8 @@ public class SpringSecurityConfig {
                         .permitAll()
                         .requestMatchers("/api/auth/**") //Auth
                         .permitAll()
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC) //Streamed responses, authorized on the request dispatch
+                        .permitAll()
                         .anyRequest()
                         .authenticated()
                 )
@@ -44,9 +47,4 @@ public class SpringSecurityConfig {
                 .build();
 
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
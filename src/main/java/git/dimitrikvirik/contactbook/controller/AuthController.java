@@ -3,6 +3,7 @@ package git.dimitrikvirik.contactbook.controller;
 import git.dimitrikvirik.contactbook.facade.UserFacade;
 import git.dimitrikvirik.contactbook.model.dto.TokenDTO;
 import git.dimitrikvirik.contactbook.model.dto.UserDTO;
+import git.dimitrikvirik.contactbook.model.param.RefreshTokenParam;
 import git.dimitrikvirik.contactbook.model.param.UserLoginParam;
 import git.dimitrikvirik.contactbook.model.param.UserRegParam;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +15,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -23,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 @Validated
@@ -60,5 +63,20 @@ public class AuthController {
         return ResponseEntity.ok(userFacade.login(userDTO));
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh token", description = "This operation exchanges a refresh token for a new access token and refresh token, every refresh token can be used once",
+            tags = {"AuthController"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Refreshed successfully",
+                    content = @Content(schema = @Schema(implementation = TokenDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid RefreshTokenParam supplied"),
+            @ApiResponse(responseCode = "401", description = "Unknown, expired or already used refresh token"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<TokenDTO> refresh(
+            @Parameter(description = "Refresh token returned by login or the previous refresh")
+            @RequestBody @Valid RefreshTokenParam refreshTokenParam) {
+        return ResponseEntity.ok(userFacade.refresh(refreshTokenParam));
+    }
+
 
 }
@@ -1,9 +1,20 @@
 package git.dimitrikvirik.contactbook.controller;
 
+import git.dimitrikvirik.contactbook.facade.ContactBookExportFacade;
 import git.dimitrikvirik.contactbook.facade.ContactBookFacade;
+import git.dimitrikvirik.contactbook.facade.ContactBookImportFacade;
 import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookSyncDTO;
+import git.dimitrikvirik.contactbook.model.dto.CursorPageDTO;
+import git.dimitrikvirik.contactbook.model.dto.ImportResultDTO;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookOrder;
+import git.dimitrikvirik.contactbook.model.enums.ExportFormat;
+import git.dimitrikvirik.contactbook.model.enums.ImportFileFormat;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
 import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
 import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -13,12 +24,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.converters.models.PageableAsQueryParam;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,12 +44,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.security.Principal;
+import java.util.List;
+import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/contact-book")
 @RequiredArgsConstructor
 @Tag(name = "ContactBookController", description = "The Contact Book Controller for handling contact book requests")
@@ -40,6 +64,10 @@ public class ContactBookController {
 
     private final ContactBookFacade contactBookFacade;
 
+    private final ContactBookImportFacade contactBookImportFacade;
+
+    private final ContactBookExportFacade contactBookExportFacade;
+
     @PostMapping
     @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
     @Operation(summary = "Create new contact book", description = "This operation creates a new contact book",
@@ -49,10 +77,101 @@ public class ContactBookController {
                     content = @Content(schema = @Schema(implementation = ContactBookDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid ContactBookParam supplied"),
             @ApiResponse(responseCode = "500", description = "Server Error")})
-    public ResponseEntity<ContactBookDTO> addContactBook(@RequestBody ContactBookParam contactBookDTO, Principal principal) {
+    public ResponseEntity<ContactBookDTO> addContactBook(@RequestBody @Valid ContactBookParam contactBookDTO, Principal principal) {
         return new ResponseEntity<>(contactBookFacade.addContactBook(contactBookDTO, principal), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/import",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    @Operation(summary = "Import contact books", description = "This operation creates contact books from a JSON array or NDJSON stream and streams back the result of every row as NDJSON",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import results, one per row",
+                    content = @Content(schema = @Schema(implementation = ImportResultDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<StreamingResponseBody> importContactBooks(@Parameter(hidden = true) HttpServletRequest request,
+                                                                    @Parameter(hidden = true) Principal principal) {
+        StreamingResponseBody results = out -> contactBookImportFacade.importContactBooks(request.getInputStream(), out, principal);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
+    @PostMapping("/import/file")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    @Operation(summary = "Import contact book file", description = "This operation starts importing a vCard or CSV file in the background, contacts whose phone or email is already known are skipped",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import job started, its progress is read from /api/jobs/{id}",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "429", description = "Too many unfinished jobs of the user"),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<JobDTO> importContactBookFile(@RequestParam(name = "format") ImportFileFormat format,
+                                                        @Parameter(hidden = true) HttpServletRequest request,
+                                                        @Parameter(hidden = true) Principal principal) throws IOException {
+        return new ResponseEntity<>(contactBookImportFacade.importFile(format, request.getInputStream(), principal), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    @Operation(summary = "Export contact books", description = "This operation streams all contact books of the user as CSV, NDJSON or vCard",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exported contact books successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<StreamingResponseBody> exportContactBooks(
+            @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+            @Parameter(hidden = true)
+            Principal principal) {
+        StreamingResponseBody contactBooks = out -> contactBookExportFacade.exportContactBooks(format, out, principal);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("contact-books." + format.getExtension())
+                        .build().toString())
+                .body(contactBooks);
+    }
+
+    @PostMapping("/export/jobs")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    @Operation(summary = "Start export job", description = "This operation exports all contact books of the user as CSV, NDJSON or vCard in the background, the file is downloaded from /api/jobs/{id}/result",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job started",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "429", description = "Too many unfinished jobs of the user"),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<JobDTO> startExportJob(@RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+                                                 @Parameter(hidden = true) Principal principal) {
+        return new ResponseEntity<>(contactBookExportFacade.startExportJob(format, principal), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/delete-all/jobs")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    @Operation(summary = "Start delete all job", description = "This operation deletes all contact books of the user in the background, its progress is read from /api/jobs/{id}",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Delete job started",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "429", description = "Too many unfinished jobs of the user"),
+            @ApiResponse(responseCode = "503", description = "Too many queued jobs"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<JobDTO> startDeleteAllJob(@Parameter(hidden = true) Principal principal) {
+        return new ResponseEntity<>(contactBookFacade.deleteAllContactBooks(principal), HttpStatus.ACCEPTED);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
     @Operation(summary = "Get contact book", description = "This operation retrieves a contact book",
@@ -60,12 +179,23 @@ public class ContactBookController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Retrieved contact book successfully",
                     content = @Content(schema = @Schema(implementation = ContactBookDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Contact book has not changed since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
             @ApiResponse(responseCode = "404", description = "Contact book not found"),
             @ApiResponse(responseCode = "500", description = "Server Error")})
-    public ResponseEntity<ContactBookDTO> getContactBook(@PathVariable("id") String id) {
-        return new ResponseEntity<>(contactBookFacade.getContactBook(id), HttpStatus.OK);
+    public ResponseEntity<ContactBookDTO> getContactBook(@PathVariable("id") String id,
+                                                         @Parameter(description = "ETag of the copy the client has, only its version is read to compare it")
+                                                         @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                         @Parameter(hidden = true) Principal principal) {
+        if (ifNoneMatch != null) {
+            String eTag = contactBookFacade.getContactBookETag(id, principal);
+            if (ETags.noneMatchHits(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        ContactBookDTO contactBook = contactBookFacade.getContactBook(id, principal);
+        return ResponseEntity.ok().eTag(ETags.of(contactBook.version())).body(contactBook);
     }
 
     @DeleteMapping("/{id}")
@@ -77,10 +207,14 @@ public class ContactBookController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
             @ApiResponse(responseCode = "404", description = "Contact book not found"),
+            @ApiResponse(responseCode = "412", description = "Contact book has changed since the ETag in If-Match"),
             @ApiResponse(responseCode = "500", description = "Server Error")})
 
-    public ResponseEntity<Void> deleteContactBook(@PathVariable("id") String id, @Parameter(hidden = true) Principal principal) {
-        contactBookFacade.deleteContactBook(id, principal);
+    public ResponseEntity<Void> deleteContactBook(@PathVariable("id") String id,
+                                                  @Parameter(description = "ETag the contact book must still have to be deleted")
+                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @Parameter(hidden = true) Principal principal) {
+        contactBookFacade.deleteContactBook(id, ifMatch, principal);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
@@ -95,9 +229,14 @@ public class ContactBookController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
             @ApiResponse(responseCode = "404", description = "Contact book not found"),
+            @ApiResponse(responseCode = "412", description = "Contact book has changed since the ETag in If-Match"),
             @ApiResponse(responseCode = "500", description = "Server Error")})
-    public ResponseEntity<ContactBookDTO> updateContactBook(@PathVariable("id") String id, @RequestBody ContactBookParam contactBookDTO, @Parameter(hidden = true) Principal principal) {
-        return new ResponseEntity<>(contactBookFacade.updateContactBook(id, contactBookDTO, principal), HttpStatus.OK);
+    public ResponseEntity<ContactBookDTO> updateContactBook(@PathVariable("id") String id, @RequestBody @Valid ContactBookParam contactBookDTO,
+                                                            @Parameter(description = "ETag the contact book must still have to be updated")
+                                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                            @Parameter(hidden = true) Principal principal) {
+        ContactBookDTO contactBook = contactBookFacade.updateContactBook(id, contactBookDTO, ifMatch, principal);
+        return ResponseEntity.ok().eTag(ETags.of(contactBook.version())).body(contactBook);
     }
 
     @GetMapping
@@ -107,17 +246,90 @@ public class ContactBookController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Retrieved contact books successfully",
                     content = @Content(schema = @Schema(implementation = ContactBookDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Page has not changed since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
             @ApiResponse(responseCode = "500", description = "Server Error")})
     @PageableAsQueryParam
-    public ResponseEntity<Page<ContactBookDTO>> getAllContactBooks(
+    public ResponseEntity<Slice<?>> getAllContactBooks(
             ContactBookSearchParam searchParam,
+            @Parameter(description = "Comma separated fields to read and return instead of whole contact books, e.g. firstname,lastname,phone; id is always returned")
+            @RequestParam(name = "fields", required = false)
+            String fields,
+            @Parameter(description = "EXACT counts on every request, NONE returns a slice without total, CACHED reuses the total of the same query for a while, FACET reads page and total in one aggregation")
+            @RequestParam(name = "countMode", defaultValue = "EXACT")
+            SearchCountMode countMode,
             @Parameter(hidden = true)
             @PageableDefault
             Pageable pageable,
             @Parameter(hidden = true)
             Principal principal) {
-        return new ResponseEntity<>(contactBookFacade.getAllContactBooks(searchParam, principal, pageable), HttpStatus.OK);
+        if (fields != null) {
+            Slice<Map<String, Object>> contactBookFields = contactBookFacade.getAllContactBookFields(searchParam, principal, pageable, countMode, fields);
+            return ResponseEntity.ok().eTag(ETags.ofFields(contactBookFields)).body(contactBookFields);
+        }
+        Slice<ContactBookDTO> contactBooks = contactBookFacade.getAllContactBooks(searchParam, principal, pageable, countMode);
+        // answered with 304 before serializing when If-None-Match has the same tag
+        return ResponseEntity.ok().eTag(ETags.of(contactBooks)).body(contactBooks);
+    }
+
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    @Operation(summary = "Get contact books by cursor", description = "This operation retrieves contact books page by page using the cursor returned as next",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retrieved contact books successfully",
+                    content = @Content(schema = @Schema(implementation = CursorPageDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor supplied"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<CursorPageDTO<ContactBookDTO>> getContactBooksByCursor(
+            @Parameter(description = "Cursor returned as next by the previous page")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @Parameter(description = "Order of the first page, later pages keep the order of the cursor")
+            @RequestParam(name = "order", defaultValue = "ID") ContactBookOrder order,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @Parameter(hidden = true)
+            Principal principal) {
+        return new ResponseEntity<>(contactBookFacade.getContactBooksAfter(cursor, order, size, principal), HttpStatus.OK);
+    }
+
+    @GetMapping("/sync")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    @Operation(summary = "Sync contact books", description = "This operation retrieves the contact books changed and the ids of those deleted since the token of the previous sync, without a token all contact books",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retrieved changes successfully",
+                    content = @Content(schema = @Schema(implementation = ContactBookSyncDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid sync token supplied"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<ContactBookSyncDTO> syncContactBooks(
+            @Parameter(description = "Token returned by the previous sync, repeat with the new token while hasMore is true")
+            @RequestParam(name = "token", required = false) String token,
+            @RequestParam(name = "size", defaultValue = "100") int size,
+            @Parameter(hidden = true)
+            Principal principal) {
+        return new ResponseEntity<>(contactBookFacade.sync(token, size, principal), HttpStatus.OK);
+    }
+
+    @GetMapping("/typeahead")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    @Operation(summary = "Typeahead contact books", description = "This operation retrieves contact books whose words start with the words of the query, or whose phone contains the digits of the query",
+            tags = {"ContactBookController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retrieved contact books successfully",
+                    content = @Content(schema = @Schema(implementation = ContactBookDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the user does not have necessary permissions"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<List<ContactBookDTO>> typeahead(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", defaultValue = "10") int limit,
+            @Parameter(hidden = true)
+            Principal principal) {
+        return new ResponseEntity<>(contactBookFacade.typeahead(query, limit, principal), HttpStatus.OK);
     }
 }
@@ -0,0 +1,79 @@
+package git.dimitrikvirik.contactbook.controller;
+
+import git.dimitrikvirik.contactbook.facade.JobFacade;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.security.Principal;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Tag(name = "JobController", description = "The Job Controller for reading background jobs and their results")
+public class JobController {
+
+    private final JobFacade jobFacade;
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyAuthority('CONTACT_BOOK_READ', 'CONTACT_BOOK_WRITE')")
+    @Operation(summary = "Get job", description = "This operation retrieves the status and progress of a background job",
+            tags = {"JobController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Retrieved job successfully",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the job belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Job not found"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<JobDTO> getJob(@PathVariable("id") String id, @Parameter(hidden = true) Principal principal) {
+        return new ResponseEntity<>(jobFacade.getJob(id, principal), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/result")
+    @PreAuthorize("hasAnyAuthority('CONTACT_BOOK_READ', 'CONTACT_BOOK_WRITE')")
+    @Operation(summary = "Download job result", description = "This operation streams the file produced by a completed job, e.g. an export",
+            tags = {"JobController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Downloaded job result successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - the job belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Job not found or it has no result"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<StreamingResponseBody> getJobResult(@PathVariable("id") String id, @Parameter(hidden = true) Principal principal) {
+        JobService.Result result = jobFacade.getJobResult(id, principal);
+        StreamingResponseBody content = out -> {
+            try (InputStream in = result.content()) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(result.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(result.filename())
+                        .build().toString())
+                .body(content);
+    }
+}
@@ -0,0 +1,107 @@
+package git.dimitrikvirik.contactbook.controller;
+
+import git.dimitrikvirik.contactbook.facade.ReactiveContactBookFacade;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.util.ETags;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The contact book API of {@link ContactBookController} on WebFlux, for the {@code reactive} profile.
+ * Imports, exports and cursor pages are only served by the servlet stack.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/contact-book")
+@RequiredArgsConstructor
+public class ReactiveContactBookController {
+
+    private final ReactiveContactBookFacade contactBookFacade;
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    public Mono<ResponseEntity<ContactBookDTO>> addContactBook(@RequestBody @Valid ContactBookParam contactBookParam, Principal principal) {
+        return contactBookFacade.addContactBook(contactBookParam, principal)
+                .map(contactBook -> new ResponseEntity<>(contactBook, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    public Mono<ResponseEntity<ContactBookDTO>> getContactBook(@PathVariable("id") String id,
+                                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                               Principal principal) {
+        Mono<ResponseEntity<ContactBookDTO>> contactBook = contactBookFacade.getContactBook(id, principal)
+                .map(found -> ResponseEntity.ok().eTag(ETags.of(found.version())).body(found));
+        if (ifNoneMatch == null) {
+            return contactBook;
+        }
+        return contactBookFacade.getContactBookETag(id, principal)
+                .flatMap(eTag -> ETags.noneMatchHits(ifNoneMatch, eTag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<ContactBookDTO>build())
+                        : contactBook);
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    public Mono<ResponseEntity<Void>> deleteContactBook(@PathVariable("id") String id,
+                                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        Principal principal) {
+        return contactBookFacade.deleteContactBook(id, ifMatch, principal)
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.NO_CONTENT)));
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_WRITE')")
+    public Mono<ResponseEntity<ContactBookDTO>> updateContactBook(@PathVariable("id") String id, @RequestBody @Valid ContactBookParam contactBookParam,
+                                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                  Principal principal) {
+        return contactBookFacade.updateContactBook(id, contactBookParam, ifMatch, principal)
+                .map(contactBook -> ResponseEntity.ok().eTag(ETags.of(contactBook.version())).body(contactBook));
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    public Mono<ResponseEntity<Slice<ContactBookDTO>>> getAllContactBooks(
+            ContactBookSearchParam searchParam,
+            @RequestParam(name = "countMode", defaultValue = "EXACT") SearchCountMode countMode,
+            @PageableDefault Pageable pageable,
+            Principal principal) {
+        // answered with 304 before serializing when If-None-Match has the same tag
+        return contactBookFacade.getAllContactBooks(searchParam, principal, pageable, countMode)
+                .map(contactBooks -> ResponseEntity.ok().eTag(ETags.of(contactBooks)).body(contactBooks));
+    }
+
+    @GetMapping("/typeahead")
+    @PreAuthorize("hasAuthority('CONTACT_BOOK_READ')")
+    public Mono<ResponseEntity<List<ContactBookDTO>>> typeahead(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", defaultValue = "10") int limit,
+            Principal principal) {
+        return contactBookFacade.typeahead(query, limit, principal).map(ResponseEntity::ok);
+    }
+}
@@ -11,14 +11,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.security.Principal;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
 @Tag(name = "UserController", description = "The User Controller for handling user requests")
@@ -38,4 +44,29 @@ public class UserController {
     public ResponseEntity<UserDTO> getCurrentUser(@Parameter(hidden = true) Principal principal) {
         return ResponseEntity.ok(userFacade.getUser(principal.getName()));
     }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Log out", description = "This operation revokes the access token of the request and the refresh token issued with it",
+            tags = {"UserController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Token revoked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<Void> logout(@Parameter(hidden = true) @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @Parameter(hidden = true) Principal principal) {
+        userFacade.logout(authorization, principal.getName());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping("/logout-all")
+    @Operation(summary = "Log out everywhere", description = "This operation revokes every access and refresh token of the user issued until now",
+            tags = {"UserController"}, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Tokens revoked"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid token"),
+            @ApiResponse(responseCode = "500", description = "Server Error")})
+    public ResponseEntity<Void> logoutEverywhere(@Parameter(hidden = true) Principal principal) {
+        userFacade.logoutEverywhere(principal.getName());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
 }
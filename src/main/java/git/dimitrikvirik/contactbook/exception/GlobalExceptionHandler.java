@@ -6,9 +6,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
@@ -20,7 +22,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ErrorDTO> handleResponseStatusException(ResponseStatusException e) {
         HttpStatusCode statusCode = e.getStatusCode();
-        return getBody(e.getReason(), statusCode);
+        return ResponseEntity.status(statusCode).headers(e.getHeaders())
+                .body(new ErrorDTO(e.getReason(), statusCode.value(), statusCode.toString(), LocalDateTime.now()));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -30,6 +33,13 @@ public class GlobalExceptionHandler {
         return getBody(collect, statusCode);
     }
 
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorDTO> handleWebExchangeBindException(WebExchangeBindException e) {
+        HttpStatusCode statusCode = HttpStatus.BAD_REQUEST;
+        String collect = e.getFieldErrors().stream().map(fieldError -> fieldError.getField() + " " + fieldError.getDefaultMessage()).collect(Collectors.joining(", "));
+        return getBody(collect, statusCode);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorDTO> handleAccessDeniedException(AccessDeniedException e) {
         HttpStatusCode statusCode = HttpStatus.FORBIDDEN;
@@ -38,7 +48,8 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDTO> handleException(Exception e) {
-        HttpStatusCode statusCode = HttpStatus.INTERNAL_SERVER_ERROR;
+        // e.g. 405 for a method the path does not support
+        HttpStatusCode statusCode = e instanceof ErrorResponse errorResponse ? errorResponse.getStatusCode() : HttpStatus.INTERNAL_SERVER_ERROR;
         return getBody(e.getMessage(), statusCode);
     }
 
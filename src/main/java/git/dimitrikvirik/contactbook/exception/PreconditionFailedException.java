@@ -0,0 +1,10 @@
+package git.dimitrikvirik.contactbook.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class PreconditionFailedException extends ResponseStatusException {
+    public PreconditionFailedException(String reason, Object... args) {
+        super(HttpStatus.PRECONDITION_FAILED, String.format(reason, args));
+    }
+}
@@ -0,0 +1,10 @@
+package git.dimitrikvirik.contactbook.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class TokenRevokedException extends ResponseStatusException {
+    public TokenRevokedException() {
+        super(HttpStatus.UNAUTHORIZED, "Token revoked");
+    }
+}
@@ -0,0 +1,10 @@
+package git.dimitrikvirik.contactbook.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class UsernameAlreadyExistsException extends ResponseStatusException {
+    public UsernameAlreadyExistsException(String username) {
+        super(HttpStatus.CONFLICT, String.format("User with username %s already exist", username));
+    }
+}
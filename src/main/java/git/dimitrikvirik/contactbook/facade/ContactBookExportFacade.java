@@ -0,0 +1,86 @@
+package git.dimitrikvirik.contactbook.facade;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.dimitrikvirik.contactbook.format.ContactBookWriter;
+import git.dimitrikvirik.contactbook.format.CsvContactBookWriter;
+import git.dimitrikvirik.contactbook.format.NdjsonContactBookWriter;
+import git.dimitrikvirik.contactbook.format.VCardContactBookWriter;
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.mapper.JobMapper;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ExportFormat;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import git.dimitrikvirik.contactbook.service.ContactBookService;
+import git.dimitrikvirik.contactbook.service.JobProgress;
+import git.dimitrikvirik.contactbook.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams all contact books of the principal from a Mongo cursor into the response. Only one cursor batch
+ * and the writer buffer are held in memory, and a slow client blocks the write, which in turn stops
+ * the cursor from fetching the next batch.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ContactBookExportFacade {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ContactBookService contactBookService;
+
+    private final ObjectMapper objectMapper;
+
+    private final JobService jobService;
+
+    public void exportContactBooks(ExportFormat format, OutputStream out, Principal principal) throws IOException {
+        export(format, out, principal.getName(), null);
+    }
+
+    /**
+     * Exports in the background into a GridFS file, which is downloaded from {@code /api/jobs/{id}/result}
+     * once the job has completed.
+     */
+    public JobDTO startExportJob(ExportFormat format, Principal principal) {
+        String ownerUserId = principal.getName();
+        return JobMapper.toDTO(jobService.submit(ownerUserId, JobType.CONTACT_BOOK_EXPORT, progress -> {
+            try (OutputStream out = jobService.createResult(progress, "contact-books." + format.getExtension(), format.getMediaType())) {
+                export(format, out, ownerUserId, progress);
+            }
+        }));
+    }
+
+    private void export(ExportFormat format, OutputStream out, String ownerUserId, JobProgress progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        ContactBookWriter contactBookWriter = switch (format) {
+            case CSV -> new CsvContactBookWriter(writer);
+            case NDJSON -> new NdjsonContactBookWriter(objectMapper, writer);
+            case VCARD -> new VCardContactBookWriter(writer);
+        };
+
+        contactBookWriter.writeHeader();
+        try (Stream<ContactBookEntity> contactBooks = contactBookService.streamByOwnerUserId(ownerUserId)) {
+            Iterator<ContactBookEntity> iterator = contactBooks.iterator();
+            while (iterator.hasNext()) {
+                contactBookWriter.write(ContactBookMapper.toDTO(iterator.next()));
+                if (progress != null) {
+                    progress.processed(1);
+                }
+            }
+        }
+        writer.flush();
+    }
+}
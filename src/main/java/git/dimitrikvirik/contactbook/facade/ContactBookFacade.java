@@ -1,56 +1,101 @@
 package git.dimitrikvirik.contactbook.facade;
 
 import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.mapper.JobMapper;
 import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookSyncDTO;
+import git.dimitrikvirik.contactbook.model.dto.CursorPageDTO;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
 import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookField;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookOrder;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
+import git.dimitrikvirik.contactbook.model.param.ContactBookCursor;
 import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
 import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.model.param.ContactBookSyncToken;
 import git.dimitrikvirik.contactbook.service.ContactBookService;
+import git.dimitrikvirik.contactbook.service.ContactBookSyncService;
+import git.dimitrikvirik.contactbook.service.JobService;
+import git.dimitrikvirik.contactbook.util.ETags;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class ContactBookFacade {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    private static final int MAX_TYPEAHEAD_LIMIT = 50;
+
     private final ContactBookService contactBookService;
 
+    private final JobService jobService;
+
+    private final ContactBookSyncService contactBookSyncService;
+
     public ContactBookDTO addContactBook(ContactBookParam contactBookParam, Principal principal) {
         return ContactBookMapper.toDTO(contactBookService.save(ContactBookMapper.toEntity(contactBookParam, principal.getName())));
     }
 
-    @PostAuthorize("returnObject.ownerUserId == authentication.name")
-    public ContactBookDTO getContactBook(String id) {
-        return ContactBookMapper.toDTO(contactBookService.findById(id));
+    public ContactBookDTO getContactBook(String id, Principal principal) {
+        return contactBookService.findCachedByIdAndOwnerUserId(id, principal.getName());
     }
 
-    public void deleteContactBook(String id, Principal principal) {
-        ContactBookEntity contactBook = getContactBookEntity(id, principal);
-        contactBookService.delete(contactBook);
+    public String getContactBookETag(String id, Principal principal) {
+        return ETags.of(contactBookService.findVersion(id, principal.getName()));
     }
 
+    public void deleteContactBook(String id, String ifMatch, Principal principal) {
+        contactBookService.deleteByIdAndOwnerUserId(id, principal.getName(), ETags.requiredVersion(ifMatch));
+    }
+
+    public JobDTO deleteAllContactBooks(Principal principal) {
+        String ownerUserId = principal.getName();
+        return JobMapper.toDTO(jobService.submit(ownerUserId, JobType.CONTACT_BOOK_DELETE,
+                progress -> contactBookService.deleteAllByOwnerUserId(ownerUserId, progress)));
+    }
+
+    public ContactBookDTO updateContactBook(String id, ContactBookParam contactBookDTO, String ifMatch, Principal principal) {
+        ContactBookEntity contactBook = ContactBookMapper.toEntity(contactBookDTO, principal.getName());
+        return ContactBookMapper.toDTO(contactBookService.update(id, principal.getName(), contactBook, ETags.requiredVersion(ifMatch)));
+    }
+
+    public Slice<ContactBookDTO> getAllContactBooks(ContactBookSearchParam searchParam, Principal principal, Pageable pageable, SearchCountMode countMode) {
+        return contactBookService.findAll(searchParam, principal.getName(), pageable, countMode, null).map(ContactBookMapper::toDTO);
+    }
+
+    public Slice<Map<String, Object>> getAllContactBookFields(ContactBookSearchParam searchParam, Principal principal, Pageable pageable,
+                                                             SearchCountMode countMode, String fields) {
+        Set<ContactBookField> selected = ContactBookField.parse(fields);
+        return contactBookService.findAll(searchParam, principal.getName(), pageable, countMode, selected)
+                .map(contactBook -> ContactBookMapper.toFields(contactBook, selected));
+    }
 
-    public ContactBookDTO updateContactBook(String id, ContactBookParam contactBookDTO, Principal principal) {
-        getContactBookEntity(id, principal);
-        return ContactBookMapper.toDTO(contactBookService.save(ContactBookMapper.toEntity(contactBookDTO, principal.getName())));
+    public CursorPageDTO<ContactBookDTO> getContactBooksAfter(String cursor, ContactBookOrder order, int size, Principal principal) {
+        ContactBookCursor after = cursor == null ? null : ContactBookCursor.decode(cursor);
+        ContactBookOrder pageOrder = after == null ? order : after.order();
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        return contactBookService.findPage(principal.getName(), pageOrder, after, pageSize).map(ContactBookMapper::toDTO);
     }
 
-    private ContactBookEntity getContactBookEntity(String id, Principal principal) {
-        ContactBookEntity contactBook = contactBookService.findById(id);
-        if (!contactBook.getOwnerUserId().equals(principal.getName())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can delete only your own contact books");
-        }
-        return contactBook;
+    public ContactBookSyncDTO sync(String token, int size, Principal principal) {
+        ContactBookSyncToken syncToken = token == null ? null : ContactBookSyncToken.decode(token);
+        return contactBookSyncService.sync(principal.getName(), syncToken, Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE));
     }
 
-    public Page<ContactBookDTO> getAllContactBooks(ContactBookSearchParam searchParam, Principal principal, Pageable pageable) {
-        return contactBookService.findAll(searchParam, principal.getName(), pageable).map(ContactBookMapper::toDTO);
+    public List<ContactBookDTO> typeahead(String query, int limit, Principal principal) {
+        return contactBookService.typeahead(principal.getName(), query, Math.min(Math.max(limit, 1), MAX_TYPEAHEAD_LIMIT));
     }
 }
@@ -0,0 +1,144 @@
+package git.dimitrikvirik.contactbook.facade;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.mapper.JobMapper;
+import git.dimitrikvirik.contactbook.model.dto.ImportResultDTO;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ImportFileFormat;
+import git.dimitrikvirik.contactbook.model.enums.ImportStatus;
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+import git.dimitrikvirik.contactbook.service.ContactBookFileImportService;
+import git.dimitrikvirik.contactbook.service.ContactBookService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports contact books from a JSON array or NDJSON stream of {@link ContactBookParam}. Rows are read
+ * one at a time, written in unordered bulk inserts of {@code contactBook.import.batchSize}, and the
+ * result of every row is streamed back as NDJSON once its batch is written, so memory use only
+ * depends on the batch size.
+ * <p>
+ * vCard and CSV files are imported in the background by {@link ContactBookFileImportService}.
+ */
+@Service
+@Profile("!reactive")
+public class ContactBookImportFacade {
+
+    private final ContactBookService contactBookService;
+
+    private final ContactBookFileImportService contactBookFileImportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final int batchSize;
+
+    public ContactBookImportFacade(ContactBookService contactBookService,
+                                   ContactBookFileImportService contactBookFileImportService,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   @Value("${contactBook.import.batchSize:1000}") int batchSize) {
+        this.contactBookService = contactBookService;
+        this.contactBookFileImportService = contactBookFileImportService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    public void importContactBooks(InputStream in, OutputStream out, Principal principal) throws IOException {
+        String ownerUserId = principal.getName();
+        List<ContactBookEntity> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+
+        try (MappingIterator<ContactBookParam> params = objectMapper.readerFor(ContactBookParam.class).readValues(in);
+             JsonGenerator results = objectMapper.createGenerator(out)) {
+            results.setRootValueSeparator(null);
+            long row = 0;
+            while (true) {
+                ContactBookParam param;
+                row++;
+                try {
+                    if (!params.hasNextValue()) {
+                        break;
+                    }
+                    param = params.nextValue();
+                } catch (JsonParseException e) {
+                    // the rest of the stream can not be told apart from the broken row
+                    write(results, new ImportResultDTO(row, ImportStatus.INVALID, null, e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    write(results, new ImportResultDTO(row, ImportStatus.INVALID, null, e.getOriginalMessage()));
+                    continue;
+                }
+
+                String violations = validate(param);
+                if (violations != null) {
+                    write(results, new ImportResultDTO(row, ImportStatus.INVALID, null, violations));
+                    continue;
+                }
+                batch.add(ContactBookMapper.toEntity(param, ownerUserId));
+                batchRows.add(row);
+                if (batch.size() == batchSize) {
+                    flush(batch, batchRows, results);
+                }
+            }
+            flush(batch, batchRows, results);
+        }
+    }
+
+    public JobDTO importFile(ImportFileFormat format, InputStream in, Principal principal) {
+        return JobMapper.toDTO(contactBookFileImportService.submit(format, in, principal.getName()));
+    }
+
+    private String validate(ContactBookParam param) {
+        Set<ConstraintViolation<ContactBookParam>> violations = validator.validate(param);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void flush(List<ContactBookEntity> batch, List<Long> batchRows, JsonGenerator results) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> failures = contactBookService.insertAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            String failure = failures.get(i);
+            write(results, failure == null
+                    ? new ImportResultDTO(batchRows.get(i), ImportStatus.CREATED, batch.get(i).getId(), null)
+                    : new ImportResultDTO(batchRows.get(i), ImportStatus.FAILED, null, failure));
+        }
+        results.flush();
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private static void write(JsonGenerator results, ImportResultDTO result) throws IOException {
+        results.writeObject(result);
+        results.writeRaw('\n');
+    }
+}
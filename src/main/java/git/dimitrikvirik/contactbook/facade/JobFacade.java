@@ -0,0 +1,26 @@
+package git.dimitrikvirik.contactbook.facade;
+
+import git.dimitrikvirik.contactbook.mapper.JobMapper;
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.security.Principal;
+
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class JobFacade {
+
+    private final JobService jobService;
+
+    public JobDTO getJob(String id, Principal principal) {
+        return JobMapper.toDTO(jobService.findByIdAndOwnerUserId(id, principal.getName()));
+    }
+
+    public JobService.Result getJobResult(String id, Principal principal) {
+        return jobService.openResult(id, principal.getName());
+    }
+}
@@ -0,0 +1,59 @@
+package git.dimitrikvirik.contactbook.facade;
+
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.service.ReactiveContactBookService;
+import git.dimitrikvirik.contactbook.util.ETags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.List;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveContactBookFacade {
+
+    private static final int MAX_TYPEAHEAD_LIMIT = 50;
+
+    private final ReactiveContactBookService contactBookService;
+
+    public Mono<ContactBookDTO> addContactBook(ContactBookParam contactBookParam, Principal principal) {
+        return contactBookService.save(ContactBookMapper.toEntity(contactBookParam, principal.getName())).map(ContactBookMapper::toDTO);
+    }
+
+    public Mono<ContactBookDTO> getContactBook(String id, Principal principal) {
+        return contactBookService.findByIdAndOwnerUserId(id, principal.getName()).map(ContactBookMapper::toDTO);
+    }
+
+    public Mono<String> getContactBookETag(String id, Principal principal) {
+        return contactBookService.findVersion(id, principal.getName()).map(ETags::of);
+    }
+
+    public Mono<Void> deleteContactBook(String id, String ifMatch, Principal principal) {
+        return Mono.defer(() -> contactBookService.deleteByIdAndOwnerUserId(id, principal.getName(), ETags.requiredVersion(ifMatch)));
+    }
+
+    public Mono<ContactBookDTO> updateContactBook(String id, ContactBookParam contactBookParam, String ifMatch, Principal principal) {
+        return Mono.defer(() -> contactBookService.update(id, principal.getName(), ContactBookMapper.toEntity(contactBookParam, principal.getName()),
+                        ETags.requiredVersion(ifMatch)))
+                .map(ContactBookMapper::toDTO);
+    }
+
+    public Mono<Slice<ContactBookDTO>> getAllContactBooks(ContactBookSearchParam searchParam, Principal principal, Pageable pageable, SearchCountMode countMode) {
+        return contactBookService.findAll(searchParam, principal.getName(), pageable, countMode)
+                .map(contactBooks -> contactBooks.map(ContactBookMapper::toDTO));
+    }
+
+    public Mono<List<ContactBookDTO>> typeahead(String query, int limit, Principal principal) {
+        return contactBookService.typeahead(principal.getName(), query, Math.min(Math.max(limit, 1), MAX_TYPEAHEAD_LIMIT));
+    }
+}
@@ -6,53 +6,92 @@ import git.dimitrikvirik.contactbook.model.dto.TokenDTO;
 import git.dimitrikvirik.contactbook.model.dto.UserDTO;
 import git.dimitrikvirik.contactbook.model.entity.UserEntity;
 import git.dimitrikvirik.contactbook.model.enums.UserScope;
+import git.dimitrikvirik.contactbook.model.param.RefreshTokenParam;
 import git.dimitrikvirik.contactbook.model.param.UserLoginParam;
 import git.dimitrikvirik.contactbook.model.param.UserRegParam;
+import git.dimitrikvirik.contactbook.service.PasswordHashingService;
+import git.dimitrikvirik.contactbook.service.RefreshTokenService;
+import git.dimitrikvirik.contactbook.service.TokenRevocationService;
 import git.dimitrikvirik.contactbook.service.UserService;
 import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class UserFacade {
 
     private final UserService userService;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     private final JwtTokenUtil jwtTokenUtil;
 
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenRevocationService tokenRevocationService;
+
 
     public UserDTO createUser(UserRegParam userParam) {
-        if(userService.existByUsername(userParam.username())){
-            throw new ResponseStatusException(HttpStatus.CONFLICT, String.format("User with username %s already exist", userParam.username()));
-        }
-        UserEntity entity = UserMapper.toEntity(userParam, passwordEncoder);
+        UserEntity entity = UserMapper.toEntity(userParam, passwordHashingService.encode(userParam.password()));
         entity.setScopes(List.of(UserScope.CONTACT_BOOK_WRITE, UserScope.CONTACT_BOOK_READ));
         return UserMapper.toDTO(userService.save(entity));
     }
 
     public TokenDTO login(UserLoginParam userLoginParam) {
         UserEntity userEntity = userService.findByUsername(userLoginParam.username()).orElseThrow(WrongCredentialException::new);
-        if (!passwordEncoder.matches(userLoginParam.password(), userEntity.getPassword())) {
+        if (!passwordHashingService.matches(userLoginParam.password(), userEntity.getPassword())) {
             throw new WrongCredentialException();
         }
+        if (passwordHashingService.needsRehash(userEntity.getPassword())) {
+            String currentHash = userEntity.getPassword();
+            passwordHashingService.rehash(userLoginParam.password(),
+                    passwordHash -> userService.replacePasswordHash(userEntity.getId(), currentHash, passwordHash));
+        }
 
+        return issueTokens(userEntity, refreshTokenService.issue(userEntity.getId()));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token, without a password check.
+     */
+    public TokenDTO refresh(RefreshTokenParam refreshTokenParam) {
+        RefreshTokenService.IssuedToken rotated = refreshTokenService.rotate(refreshTokenParam.refreshToken());
+        UserEntity userEntity = userService.findByIdOptional(rotated.userId()).orElseThrow(WrongCredentialException::new);
+        return issueTokens(userEntity, rotated);
+    }
+
+    private TokenDTO issueTokens(UserEntity userEntity, RefreshTokenService.IssuedToken refreshToken) {
         Claims claims = Jwts.claims();
 
         claims.put("username", userEntity.getUsername());
         claims.put("scopes", userEntity.getScopes().stream().map(Enum::name).toList());
+        claims.put(JwtTokenUtil.REFRESH_TOKEN_FAMILY, refreshToken.familyId());
 
         String token = jwtTokenUtil.doGenerateToken(claims, userEntity.getId());
-        return new TokenDTO(token);
+        return new TokenDTO(token, refreshToken.refreshToken());
+    }
+
+    /**
+     * Revokes the access token and the refresh token chain it was issued with.
+     */
+    public void logout(String authorizationHeader, String userId) {
+        Claims claims = jwtTokenUtil.getClaims(authorizationHeader.substring(JwtTokenUtil.BEARER_PREFIX.length()));
+        tokenRevocationService.revokeToken(claims.getId(), userId, claims.getExpiration().toInstant());
+        String refreshTokenFamily = claims.get(JwtTokenUtil.REFRESH_TOKEN_FAMILY, String.class);
+        if (refreshTokenFamily != null) {
+            refreshTokenService.revokeFamily(refreshTokenFamily);
+        }
+    }
+
+    public void logoutEverywhere(String userId) {
+        tokenRevocationService.revokeUserTokens(userId);
     }
 
     public UserDTO getUser(String id) {
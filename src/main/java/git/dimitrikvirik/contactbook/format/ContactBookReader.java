@@ -0,0 +1,25 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads contact books of one import format in two steps, so that the expensive one can run in parallel:
+ * {@link #nextChunk} cheaply cuts the input into whole records on the reading thread, and
+ * {@link #parse} turns a chunk into contact books on any thread.
+ */
+public interface ContactBookReader {
+
+    /**
+     * @return the raw text of up to {@code maxRecords} records, or {@code null} at the end of the input
+     */
+    String nextChunk(int maxRecords) throws IOException;
+
+    /**
+     * Parses the records of a chunk. Records that can not be understood are returned with the fields
+     * that could be read, and are left to validation.
+     */
+    List<ContactBookParam> parse(String chunk);
+}
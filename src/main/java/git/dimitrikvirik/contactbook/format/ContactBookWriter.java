@@ -0,0 +1,16 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+
+import java.io.IOException;
+
+/**
+ * Writes contact books one at a time in one export format.
+ */
+public interface ContactBookWriter {
+
+    default void writeHeader() throws IOException {
+    }
+
+    void write(ContactBookDTO contactBook) throws IOException;
+}
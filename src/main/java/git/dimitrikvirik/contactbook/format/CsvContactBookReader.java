@@ -0,0 +1,203 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row. Columns are matched by name, including the names used by common
+ * phone and CRM exports, so that the columns can come in any order and unknown ones are ignored.
+ */
+public class CsvContactBookReader implements ContactBookReader {
+
+    private static final int FIRSTNAME = 0;
+    private static final int LASTNAME = 1;
+    private static final int PHONE = 2;
+    private static final int EMAIL = 3;
+    private static final int ADDRESS = 4;
+
+    private static final int MAX_RECORD_LINES = 100;
+
+    private static final int MAX_RECORD_CHARS = 16 * 1024;
+
+    /**
+     * A record with no readable fields, which fails validation and is counted as invalid.
+     */
+    private static final String MALFORMED_RECORD = ",";
+
+    private static final Map<String, Integer> COLUMN_NAMES = Map.ofEntries(
+            Map.entry("firstname", FIRSTNAME),
+            Map.entry("first name", FIRSTNAME),
+            Map.entry("given name", FIRSTNAME),
+            Map.entry("lastname", LASTNAME),
+            Map.entry("last name", LASTNAME),
+            Map.entry("family name", LASTNAME),
+            Map.entry("surname", LASTNAME),
+            Map.entry("phone", PHONE),
+            Map.entry("phone number", PHONE),
+            Map.entry("mobile", PHONE),
+            Map.entry("mobile phone", PHONE),
+            Map.entry("phone 1 - value", PHONE),
+            Map.entry("email", EMAIL),
+            Map.entry("e-mail", EMAIL),
+            Map.entry("email address", EMAIL),
+            Map.entry("e-mail address", EMAIL),
+            Map.entry("e-mail 1 - value", EMAIL),
+            Map.entry("address", ADDRESS),
+            Map.entry("home address", ADDRESS),
+            Map.entry("address 1 - formatted", ADDRESS)
+    );
+
+    private final BufferedReader reader;
+
+    /**
+     * Position of every field in a record, or -1 when the file has no such column.
+     */
+    private final int[] columns = new int[5];
+
+    public CsvContactBookReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        Arrays.fill(columns, -1);
+        String header = readRecord();
+        if (header == null) {
+            return;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = records(header + "\n").get(0);
+        for (int i = names.size() - 1; i >= 0; i--) {
+            Integer field = COLUMN_NAMES.get(names.get(i).trim().toLowerCase(Locale.ROOT));
+            if (field != null) {
+                columns[field] = i;
+            }
+        }
+    }
+
+    @Override
+    public String nextChunk(int maxRecords) throws IOException {
+        StringBuilder chunk = new StringBuilder();
+        int records = 0;
+        String record;
+        while (records < maxRecords && (record = readRecord()) != null) {
+            if (!record.isBlank()) {
+                chunk.append(record).append('\n');
+                records++;
+            }
+        }
+        return records == 0 ? null : chunk.toString();
+    }
+
+    @Override
+    public List<ContactBookParam> parse(String chunk) {
+        List<ContactBookParam> contactBooks = new ArrayList<>();
+        for (List<String> record : records(chunk)) {
+            contactBooks.add(ContactBookParam.builder()
+                    .firstname(field(record, FIRSTNAME))
+                    .lastname(field(record, LASTNAME))
+                    .phone(field(record, PHONE))
+                    .email(field(record, EMAIL))
+                    .address(field(record, ADDRESS))
+                    .build());
+        }
+        return contactBooks;
+    }
+
+    private String field(List<String> record, int field) {
+        int column = columns[field];
+        if (column < 0 || column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads one record, which spans several lines when a quoted field contains line breaks. A record that is
+     * still quoted after {@link #MAX_RECORD_LINES} lines or {@link #MAX_RECORD_CHARS} characters has a stray
+     * quote, as does one still quoted at the end of the input: its first line becomes a {@link #MALFORMED_RECORD}
+     * and reading continues on the next line.
+     */
+    private String readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        if (!isQuotedAfter(line, false)) {
+            return line;
+        }
+        reader.mark(MAX_RECORD_CHARS * 4);
+        StringBuilder record = new StringBuilder(line);
+        int lines = 1;
+        String next;
+        while ((next = reader.readLine()) != null) {
+            record.append('\n').append(next);
+            if (!isQuotedAfter(next, true)) {
+                return record.toString();
+            }
+            if (++lines > MAX_RECORD_LINES || record.length() > MAX_RECORD_CHARS) {
+                break;
+            }
+        }
+        try {
+            reader.reset();
+        } catch (IOException e) {
+            // a line longer than the mark limit, the lines read after the first one are lost
+        }
+        return MALFORMED_RECORD;
+    }
+
+    /**
+     * Whether a quoted field is open at the end of the line. An escaped quote toggles the state twice.
+     */
+    private static boolean isQuotedAfter(String line, boolean quoted) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    /**
+     * Splits newline-terminated records into fields, unquoting quoted fields.
+     */
+    private static List<List<String>> records(String text) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                field.setLength(0);
+                records.add(fields);
+                fields = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,59 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 CSV: a header row, CRLF line breaks and fields quoted only when they need it.
+ */
+public class CsvContactBookWriter implements ContactBookWriter {
+
+    public static final String[] COLUMNS = {"id", "firstname", "lastname", "phone", "email", "address"};
+
+    private final Writer writer;
+
+    public CsvContactBookWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        writeRow(COLUMNS);
+    }
+
+    @Override
+    public void write(ContactBookDTO contactBook) throws IOException {
+        writeRow(contactBook.id(), contactBook.firstname(), contactBook.lastname(),
+                contactBook.phone(), contactBook.email(), contactBook.address());
+    }
+
+    private void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
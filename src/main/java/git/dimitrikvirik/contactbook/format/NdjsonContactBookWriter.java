@@ -0,0 +1,31 @@
+package git.dimitrikvirik.contactbook.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * One JSON object per line, the same shape as {@code GET /api/contact-book/{id}}.
+ */
+public class NdjsonContactBookWriter implements ContactBookWriter {
+
+    private final JsonGenerator generator;
+
+    public NdjsonContactBookWriter(ObjectMapper objectMapper, Writer writer) throws IOException {
+        this.generator = objectMapper.createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(ContactBookDTO contactBook) throws IOException {
+        generator.writeObject(contactBook);
+        generator.writeRaw('\n');
+        // hands the line over to the buffered writer, the stream underneath is not flushed
+        generator.flush();
+    }
+}
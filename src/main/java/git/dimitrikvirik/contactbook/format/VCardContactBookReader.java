@@ -0,0 +1,202 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * vCard 2.1, 3.0 and 4.0 as exported by phones: folded lines, property groups ({@code item1.TEL}),
+ * parameters and quoted-printable values of 2.1 are understood. The first TEL, EMAIL and ADR are used.
+ */
+public class VCardContactBookReader implements ContactBookReader {
+
+    private final BufferedReader reader;
+
+    public VCardContactBookReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public String nextChunk(int maxRecords) throws IOException {
+        StringBuilder chunk = new StringBuilder();
+        int records = 0;
+        String line;
+        while (records < maxRecords && (line = reader.readLine()) != null) {
+            chunk.append(line).append('\n');
+            if (line.trim().equalsIgnoreCase("END:VCARD")) {
+                records++;
+            }
+        }
+        return chunk.isEmpty() ? null : chunk.toString();
+    }
+
+    @Override
+    public List<ContactBookParam> parse(String chunk) {
+        List<ContactBookParam> contactBooks = new ArrayList<>();
+        Card card = null;
+        for (String line : unfold(chunk)) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String[] nameAndParameters = line.substring(0, colon).split(";");
+            String name = nameAndParameters[0].substring(nameAndParameters[0].indexOf('.') + 1).toUpperCase(Locale.ROOT);
+            String value = decode(line.substring(colon + 1), nameAndParameters);
+
+            if (name.equals("BEGIN")) {
+                card = new Card();
+            } else if (card == null) {
+                continue;
+            } else if (name.equals("END")) {
+                contactBooks.add(card.toParam());
+                card = null;
+            } else {
+                card.add(name, value);
+            }
+        }
+        return contactBooks;
+    }
+
+    /**
+     * Joins continuation lines: folded lines start with a space or tab, and quoted-printable lines
+     * of vCard 2.1 end with a soft line break {@code =}.
+     */
+    private static List<String> unfold(String chunk) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder current = null;
+        for (String line : chunk.split("\n")) {
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            boolean folded = !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t');
+            if (current != null && folded) {
+                current.append(line, 1, line.length());
+            } else if (current != null && isSoftBreak(current)) {
+                current.setLength(current.length() - 1);
+                current.append(line);
+            } else {
+                if (current != null) {
+                    lines.add(current.toString());
+                }
+                current = new StringBuilder(line);
+            }
+        }
+        if (current != null) {
+            lines.add(current.toString());
+        }
+        return lines;
+    }
+
+    private static boolean isSoftBreak(StringBuilder line) {
+        return line.length() > 0 && line.charAt(line.length() - 1) == '='
+                && line.toString().toUpperCase(Locale.ROOT).contains("QUOTED-PRINTABLE");
+    }
+
+    private static String decode(String value, String[] nameAndParameters) {
+        boolean quotedPrintable = false;
+        Charset charset = StandardCharsets.UTF_8;
+        for (int i = 1; i < nameAndParameters.length; i++) {
+            String parameter = nameAndParameters[i].toUpperCase(Locale.ROOT);
+            if (parameter.equals("QUOTED-PRINTABLE") || parameter.equals("ENCODING=QUOTED-PRINTABLE")) {
+                quotedPrintable = true;
+            } else if (parameter.startsWith("CHARSET=") && Charset.isSupported(parameter.substring(8))) {
+                charset = Charset.forName(parameter.substring(8));
+            }
+        }
+        return quotedPrintable ? decodeQuotedPrintable(value, charset) : value;
+    }
+
+    private static String decodeQuotedPrintable(String value, Charset charset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '=' && i + 2 < value.length()
+                    && Character.digit(value.charAt(i + 1), 16) >= 0 && Character.digit(value.charAt(i + 2), 16) >= 0) {
+                bytes.write(Character.digit(value.charAt(i + 1), 16) * 16 + Character.digit(value.charAt(i + 2), 16));
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        return bytes.toString(charset);
+    }
+
+    /**
+     * Splits a structured value at the separators that are not escaped and unescapes the components.
+     */
+    private static List<String> components(String value) {
+        List<String> components = new ArrayList<>();
+        StringBuilder component = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char escaped = value.charAt(++i);
+                component.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else if (c == ';') {
+                components.add(component.toString().trim());
+                component.setLength(0);
+            } else {
+                component.append(c);
+            }
+        }
+        components.add(component.toString().trim());
+        return components;
+    }
+
+    private static String text(String value) {
+        String text = String.join(";", components(value)).trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String component(List<String> components, int index) {
+        return index < components.size() && !components.get(index).isEmpty() ? components.get(index) : null;
+    }
+
+    private static class Card {
+
+        private String firstname;
+        private String lastname;
+        private String formattedName;
+        private String phone;
+        private String email;
+        private String address;
+
+        void add(String name, String value) {
+            switch (name) {
+                case "N" -> {
+                    List<String> components = components(value);
+                    lastname = component(components, 0);
+                    firstname = component(components, 1);
+                }
+                case "FN" -> formattedName = text(value);
+                case "TEL" -> phone = phone == null ? text(value.startsWith("tel:") ? value.substring(4) : value) : phone;
+                case "EMAIL" -> email = email == null ? text(value) : email;
+                case "ADR" -> address = address == null ? address(components(value)) : address;
+                default -> {
+                }
+            }
+        }
+
+        private static String address(List<String> components) {
+            String address = String.join(", ", components.stream().filter(component -> !component.isEmpty()).toList());
+            return address.isEmpty() ? null : address.replace('\n', ' ');
+        }
+
+        ContactBookParam toParam() {
+            return ContactBookParam.builder()
+                    .firstname(firstname == null && lastname == null ? formattedName : firstname)
+                    .lastname(lastname)
+                    .phone(phone)
+                    .email(email)
+                    .address(address)
+                    .build();
+        }
+    }
+}
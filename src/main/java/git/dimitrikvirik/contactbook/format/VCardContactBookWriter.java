@@ -0,0 +1,92 @@
+package git.dimitrikvirik.contactbook.format;
+
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * vCard 3.0 (RFC 2426), which address books of phones and CRMs still import most reliably.
+ * Values are escaped and lines longer than 75 octets are folded.
+ */
+public class VCardContactBookWriter implements ContactBookWriter {
+
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final Writer writer;
+
+    public VCardContactBookWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(ContactBookDTO contactBook) throws IOException {
+        writeLine("BEGIN:VCARD");
+        writeLine("VERSION:3.0");
+        writeLine("UID:" + escape(contactBook.id()));
+        writeLine("N:" + escape(contactBook.lastname()) + ";" + escape(contactBook.firstname()) + ";;;");
+        writeLine("FN:" + escape(fullName(contactBook)));
+        if (contactBook.phone() != null) {
+            writeLine("TEL:" + escape(contactBook.phone()));
+        }
+        if (contactBook.email() != null) {
+            writeLine("EMAIL:" + escape(contactBook.email()));
+        }
+        if (contactBook.address() != null) {
+            writeLine("ADR:;;" + escape(contactBook.address()) + ";;;;");
+        }
+        writeLine("END:VCARD");
+    }
+
+    private static String fullName(ContactBookDTO contactBook) {
+        if (contactBook.firstname() == null) {
+            return contactBook.lastname();
+        }
+        return contactBook.lastname() == null ? contactBook.firstname() : contactBook.firstname() + " " + contactBook.lastname();
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escaped.append('\\').append(c);
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> {
+                }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void writeLine(String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int length = utf8Length(codePoint);
+            if (octets + length > MAX_LINE_OCTETS) {
+                // continuation lines start with a space, which counts towards their length
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(Character.toChars(codePoint));
+            octets += length;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+}
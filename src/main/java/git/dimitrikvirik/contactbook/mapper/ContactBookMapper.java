@@ -2,8 +2,13 @@ package git.dimitrikvirik.contactbook.mapper;
 
 import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
 import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookField;
 import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 public class ContactBookMapper {
 
     private ContactBookMapper() {
@@ -17,9 +22,21 @@ public class ContactBookMapper {
                 .phone(entity.getPhone())
                 .email(entity.getEmail())
                 .address(entity.getAddress())
+                .version(entity.getVersion())
                 .build();
     }
 
+    /**
+     * Only the selected fields, for contact books read with a projection of those fields.
+     */
+    public static Map<String, Object> toFields(ContactBookEntity entity, Set<ContactBookField> fields) {
+        Map<String, Object> values = LinkedHashMap.newLinkedHashMap(fields.size());
+        for (ContactBookField field : fields) {
+            values.put(field.getProperty(), field.get(entity));
+        }
+        return values;
+    }
+
     public static ContactBookEntity toEntity(ContactBookParam contactBookParam, String ownerUserId) {
         return ContactBookEntity.builder()
                 .ownerUserId(ownerUserId)
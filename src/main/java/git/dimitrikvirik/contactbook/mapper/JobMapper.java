@@ -0,0 +1,34 @@
+package git.dimitrikvirik.contactbook.mapper;
+
+import git.dimitrikvirik.contactbook.model.dto.JobDTO;
+import git.dimitrikvirik.contactbook.model.entity.JobEntity;
+import git.dimitrikvirik.contactbook.model.enums.JobStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class JobMapper {
+
+    private JobMapper() {
+    }
+
+    public static JobDTO toDTO(JobEntity entity) {
+        Instant started = entity.getStartedAt();
+        Instant finished = entity.getFinishedAt();
+        double seconds = started == null ? 0
+                : Duration.between(started, finished == null ? Instant.now() : finished).toMillis() / 1000.0;
+        return JobDTO.builder()
+                .id(entity.getId())
+                .type(entity.getType())
+                .status(entity.getStatus())
+                .processed(entity.getProcessed())
+                .processedPerSecond(seconds > 0 ? Math.round(entity.getProcessed() / seconds) : 0)
+                .counters(entity.getCounters())
+                .resultAvailable(entity.getStatus() == JobStatus.COMPLETED && entity.getResultFileId() != null)
+                .createdAt(entity.getCreatedAt())
+                .startedAt(started)
+                .finishedAt(finished)
+                .message(entity.getMessage())
+                .build();
+    }
+}
@@ -3,18 +3,17 @@ package git.dimitrikvirik.contactbook.mapper;
 import git.dimitrikvirik.contactbook.model.dto.UserDTO;
 import git.dimitrikvirik.contactbook.model.entity.UserEntity;
 import git.dimitrikvirik.contactbook.model.param.UserRegParam;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 public class UserMapper {
 
     private UserMapper() {
     }
 
-    public static UserEntity toEntity(UserRegParam userParam, PasswordEncoder passwordEncoder) {
+    public static UserEntity toEntity(UserRegParam userParam, String passwordHash) {
         return UserEntity
                 .builder()
                 .username(userParam.username())
-                .password(passwordEncoder.encode(userParam.password()))
+                .password(passwordHash)
                 .build();
     }
 
@@ -0,0 +1,93 @@
+package git.dimitrikvirik.contactbook.migration;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.entity.MigrationEntity;
+import git.dimitrikvirik.contactbook.repository.MigrationRepository;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Backfills the shadow fields of {@link ContactBookNormalizer} on contact books saved before they existed.
+ * Walks the collection in {@code _id} order in batches, so every batch is one indexed read and one
+ * unordered bulk write. Runs once: on completion it is recorded in {@code migrations}, because contact books
+ * saved later without a lastname or phone legitimately lack those shadow fields.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "contactBook.migration.shadowFields", havingValue = "true", matchIfMissing = true)
+public class ShadowFieldsMigration {
+
+    private static final String NAME = "shadowFields";
+
+    private static final List<String> SHADOW_FIELDS = List.of("firstnameLower", "lastnameLower", "phoneDigits", "phoneDigitsReversed");
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MigrationRepository migrationRepository;
+
+    private final int batchSize;
+
+    public ShadowFieldsMigration(MongoTemplate mongoTemplate,
+                                 MigrationRepository migrationRepository,
+                                 @Value("${contactBook.migration.batchSize:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.migrationRepository = migrationRepository;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (migrationRepository.existsById(NAME)) {
+            return;
+        }
+        String lastId = null;
+        long migrated = 0;
+        while (true) {
+            Criteria criteria = new Criteria().orOperator(SHADOW_FIELDS.stream()
+                    .map(field -> Criteria.where(field).exists(false))
+                    .toList());
+            if (lastId != null) {
+                criteria.and("id").gt(lastId);
+            }
+            Query query = Query.query(criteria).with(Sort.by("id")).limit(batchSize);
+            query.fields().include("id", "firstname", "lastname", "phone");
+            List<ContactBookEntity> batch = mongoTemplate.find(query, ContactBookEntity.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ContactBookEntity.class);
+            for (ContactBookEntity contactBook : batch) {
+                ContactBookNormalizer.normalize(contactBook);
+                // empty sources get an explicit null so that the document is not picked up again
+                bulk.updateOne(Query.query(Criteria.where("id").is(contactBook.getId())), new Update()
+                        .set("firstnameLower", contactBook.getFirstnameLower())
+                        .set("lastnameLower", contactBook.getLastnameLower())
+                        .set("phoneDigits", contactBook.getPhoneDigits())
+                        .set("phoneDigitsReversed", contactBook.getPhoneDigitsReversed()));
+            }
+            migrated += bulk.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).getId();
+            log.info("Backfilled shadow fields of {} contact books", migrated);
+        }
+        migrationRepository.save(MigrationEntity.builder()
+                .id(NAME)
+                .migrated(migrated)
+                .completedAt(Instant.now())
+                .build());
+    }
+}
@@ -9,5 +9,6 @@ public record ContactBookDTO(String id,
                              String lastname,
                              String email,
                              String phone,
-                             String address) {
+                             String address,
+                             Long version) {
 }
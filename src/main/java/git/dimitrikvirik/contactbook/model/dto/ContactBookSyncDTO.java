@@ -0,0 +1,14 @@
+package git.dimitrikvirik.contactbook.model.dto;
+
+import java.util.List;
+
+/**
+ * Changes since the token of the previous sync. {@code reset} tells the client to drop its copy first,
+ * because its token was too old to know every deletion since.
+ */
+public record ContactBookSyncDTO(List<ContactBookDTO> changed,
+                                 List<String> deleted,
+                                 String token,
+                                 boolean hasMore,
+                                 boolean reset) {
+}
@@ -0,0 +1,12 @@
+package git.dimitrikvirik.contactbook.model.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDTO<T>(List<T> content,
+                               String next) {
+
+    public <R> CursorPageDTO<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPageDTO<>(content.stream().<R>map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,11 @@
+package git.dimitrikvirik.contactbook.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import git.dimitrikvirik.contactbook.model.enums.ImportStatus;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportResultDTO(long row,
+                              ImportStatus status,
+                              String id,
+                              String message) {
+}
@@ -0,0 +1,24 @@
+package git.dimitrikvirik.contactbook.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import git.dimitrikvirik.contactbook.model.enums.JobStatus;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobDTO(String id,
+                     JobType type,
+                     JobStatus status,
+                     long processed,
+                     double processedPerSecond,
+                     Map<String, Long> counters,
+                     boolean resultAvailable,
+                     Instant createdAt,
+                     Instant startedAt,
+                     Instant finishedAt,
+                     String message) {
+}
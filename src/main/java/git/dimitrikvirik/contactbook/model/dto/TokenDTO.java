@@ -1,4 +1,4 @@
 package git.dimitrikvirik.contactbook.model.dto;
 
-public record TokenDTO(String token) {
+public record TokenDTO(String token, String refreshToken) {
 }
@@ -0,0 +1,32 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A write, or a batch of writes, that other instances have to invalidate, for deployments where change
+ * streams are not available.
+ */
+@Document(collection = "cache_invalidations")
+@Builder
+@Data
+public class CacheInvalidationEntity {
+
+    @Id
+    private String id;
+
+    private String collectionName;
+
+    private List<String> documentIds;
+
+    private String nodeId;
+
+    @Indexed(name = "created", expireAfter = "1h")
+    private Instant createdAt;
+}
@@ -3,10 +3,24 @@ package git.dimitrikvirik.contactbook.model.entity;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Document(collection = "contact_books")
+@CompoundIndexes({
+        @CompoundIndex(name = "owner_id", def = "{'ownerUserId': 1, '_id': 1}"),
+        @CompoundIndex(name = "owner_lastname_firstname", def = "{'ownerUserId': 1, 'lastname': 1, 'firstname': 1, '_id': 1}"),
+        @CompoundIndex(name = "owner_firstname_lower", def = "{'ownerUserId': 1, 'firstnameLower': 1}"),
+        @CompoundIndex(name = "owner_lastname_lower", def = "{'ownerUserId': 1, 'lastnameLower': 1}"),
+        @CompoundIndex(name = "owner_phone_digits", def = "{'ownerUserId': 1, 'phoneDigits': 1}"),
+        @CompoundIndex(name = "owner_phone_digits_reversed", def = "{'ownerUserId': 1, 'phoneDigitsReversed': 1}"),
+        @CompoundIndex(name = "owner_updated_at", def = "{'ownerUserId': 1, 'updatedAt': 1, '_id': 1}")
+})
 @Builder
 @Data
 public class ContactBookEntity {
@@ -16,6 +30,17 @@ public class ContactBookEntity {
 
     private String ownerUserId;
 
+    /**
+     * Incremented by every update, the ETag of the contact book.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Time of the last write, for delta sync. Missing on contact books not written since it was introduced.
+     */
+    private Instant updatedAt;
+
     @TextIndexed
     private String firstname;
 
@@ -31,5 +56,23 @@ public class ContactBookEntity {
     @TextIndexed
     private String email;
 
+    /**
+     * Lowercase {@link #firstname} without diacritics for anchored prefix search,
+     * maintained on save by {@code ContactBookEntityCallback} like the other shadow fields below.
+     */
+    private String firstnameLower;
+
+    private String lastnameLower;
+
+    /**
+     * Digits of {@link #phone}.
+     */
+    private String phoneDigits;
+
+    /**
+     * {@link #phoneDigits} reversed, so that a suffix lookup is an anchored prefix scan of the index.
+     */
+    private String phoneDigitsReversed;
+
 
 }
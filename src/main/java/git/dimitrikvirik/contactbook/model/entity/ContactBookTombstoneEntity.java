@@ -0,0 +1,32 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A deleted contact book, kept for {@code contactBook.sync.tombstoneRetention} so that syncing clients learn about it.
+ */
+@Document(collection = "contact_book_tombstones")
+@CompoundIndex(name = "owner_deleted_at", def = "{'ownerUserId': 1, 'deletedAt': 1, '_id': 1}")
+@Builder
+@Data
+public class ContactBookTombstoneEntity {
+
+    @Id
+    private String id;
+
+    private String contactBookId;
+
+    private String ownerUserId;
+
+    private Instant deletedAt;
+
+    @Indexed(name = "expires", expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,58 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import git.dimitrikvirik.contactbook.model.enums.JobStatus;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Document(collection = "jobs")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_heartbeat", def = "{'status': 1, 'heartbeatAt': 1}"),
+        @CompoundIndex(name = "owner_status", def = "{'ownerUserId': 1, 'status': 1}"),
+        @CompoundIndex(name = "finished", def = "{'finishedAt': 1}", sparse = true)
+})
+@Builder
+@Data
+public class JobEntity {
+
+    @Id
+    private String id;
+
+    private String ownerUserId;
+
+    private JobType type;
+
+    private JobStatus status;
+
+    private long processed;
+
+    /**
+     * Job specific progress counters, e.g. created and duplicate contact books of an import.
+     */
+    private Map<String, Long> counters;
+
+    private String message;
+
+    /**
+     * GridFS file with the result of the job, if it has one.
+     */
+    private String resultFileId;
+
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    /**
+     * Refreshed while the job is queued or running, a job whose heartbeat stops is marked {@link JobStatus#INTERRUPTED}.
+     */
+    private Instant heartbeatAt;
+}
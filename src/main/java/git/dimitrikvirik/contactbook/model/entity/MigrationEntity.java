@@ -0,0 +1,24 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A data migration that completed, by name, so that it is not run again on the next startup.
+ */
+@Document(collection = "migrations")
+@Builder
+@Data
+public class MigrationEntity {
+
+    @Id
+    private String id;
+
+    private long migrated;
+
+    private Instant completedAt;
+}
@@ -0,0 +1,43 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "refresh_tokens")
+@Builder
+@Data
+public class RefreshTokenEntity {
+
+    @Id
+    private String id;
+
+    /**
+     * SHA-256 of the token, the token itself is only known to the client.
+     */
+    @Indexed(name = "token_hash", unique = true)
+    private String tokenHash;
+
+    @Indexed(name = "user")
+    private String userId;
+
+    /**
+     * Shared by a token and all tokens it was rotated into, so that a reused token revokes the whole chain.
+     */
+    @Indexed(name = "family")
+    private String familyId;
+
+    private Instant createdAt;
+
+    @Indexed(name = "expires", expireAfter = "0s")
+    private Instant expiresAt;
+
+    /**
+     * Set when the token was exchanged for a new one, a token can only be used once.
+     */
+    private Instant usedAt;
+}
@@ -0,0 +1,27 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Last change stream position of one instance on one collection, by {@code nodeId:collection}.
+ */
+@Document(collection = "change_stream_resume_tokens")
+@Builder
+@Data
+public class ResumeTokenEntity {
+
+    @Id
+    private String id;
+
+    /**
+     * Resume token as extended JSON.
+     */
+    private String resumeToken;
+
+    private Instant updatedAt;
+}
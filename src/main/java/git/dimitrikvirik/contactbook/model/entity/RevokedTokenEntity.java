@@ -0,0 +1,36 @@
+package git.dimitrikvirik.contactbook.model.entity;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Either one revoked access token ({@code tokenId}) or all tokens of a user issued up to {@code revokedBefore}.
+ */
+@Document(collection = "revoked_tokens")
+@Builder
+@Data
+public class RevokedTokenEntity {
+
+    @Id
+    private String id;
+
+    private String tokenId;
+
+    private String userId;
+
+    private Instant revokedBefore;
+
+    @Indexed(name = "revoked_at")
+    private Instant revokedAt;
+
+    /**
+     * When every token this entry revokes has expired anyway.
+     */
+    @Indexed(name = "expires", expireAfter = "0s")
+    private Instant expiresAt;
+}
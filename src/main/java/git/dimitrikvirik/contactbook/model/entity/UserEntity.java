@@ -5,19 +5,21 @@ import git.dimitrikvirik.contactbook.model.enums.UserScope;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
 @Document(collection = "users")
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class UserEntity  {
 
     @Id
     private String id;
 
 
+    @Indexed(name = "username", unique = true)
     private String username;
 
     private String password;
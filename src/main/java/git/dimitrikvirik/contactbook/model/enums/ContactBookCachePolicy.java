@@ -0,0 +1,16 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum ContactBookCachePolicy {
+    /**
+     * Caffeine, admits by frequency and evicts by recency (W-TinyLFU).
+     */
+    TINY_LFU,
+    /**
+     * Least recently read entry is evicted first.
+     */
+    LRU,
+    /**
+     * Every read goes to Mongo.
+     */
+    NONE
+}
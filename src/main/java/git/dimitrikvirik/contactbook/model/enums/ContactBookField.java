@@ -0,0 +1,58 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Fields of a contact book that a client can select, by the name they have in {@code ContactBookDTO}.
+ */
+public enum ContactBookField {
+    ID("id", ContactBookEntity::getId),
+    FIRSTNAME("firstname", ContactBookEntity::getFirstname),
+    LASTNAME("lastname", ContactBookEntity::getLastname),
+    EMAIL("email", ContactBookEntity::getEmail),
+    PHONE("phone", ContactBookEntity::getPhone),
+    ADDRESS("address", ContactBookEntity::getAddress),
+    VERSION("version", ContactBookEntity::getVersion);
+
+    private final String property;
+
+    private final Function<ContactBookEntity, Object> getter;
+
+    ContactBookField(String property, Function<ContactBookEntity, Object> getter) {
+        this.property = property;
+        this.getter = getter;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object get(ContactBookEntity contactBook) {
+        return getter.apply(contactBook);
+    }
+
+    /**
+     * Fields of a comma separated list such as {@code firstname,phone}, always with the id.
+     */
+    public static EnumSet<ContactBookField> parse(String fields) {
+        EnumSet<ContactBookField> selected = EnumSet.of(ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                selected.add(valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Unknown field %s", name));
+            }
+        }
+        return selected;
+    }
+}
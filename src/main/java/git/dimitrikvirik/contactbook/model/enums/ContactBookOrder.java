@@ -0,0 +1,6 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum ContactBookOrder {
+    ID,
+    NAME
+}
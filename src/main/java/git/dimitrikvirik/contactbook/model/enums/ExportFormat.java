@@ -0,0 +1,26 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    VCARD(new MediaType("text", "vcard"), "vcf");
+
+    private final MediaType mediaType;
+
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
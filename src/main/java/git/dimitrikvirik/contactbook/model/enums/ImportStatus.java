@@ -0,0 +1,13 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum ImportStatus {
+    CREATED,
+    /**
+     * The row is not a valid contact book and was not written.
+     */
+    INVALID,
+    /**
+     * The row is valid but Mongo rejected the insert.
+     */
+    FAILED
+}
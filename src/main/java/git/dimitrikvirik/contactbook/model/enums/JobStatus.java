@@ -0,0 +1,12 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    /**
+     * The application stopped while the job was queued or running.
+     */
+    INTERRUPTED
+}
@@ -0,0 +1,7 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum JobType {
+    CONTACT_BOOK_IMPORT,
+    CONTACT_BOOK_EXPORT,
+    CONTACT_BOOK_DELETE
+}
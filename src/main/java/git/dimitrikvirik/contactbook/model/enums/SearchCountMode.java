@@ -0,0 +1,20 @@
+package git.dimitrikvirik.contactbook.model.enums;
+
+public enum SearchCountMode {
+    /**
+     * Separate count query on every request.
+     */
+    EXACT,
+    /**
+     * No count, one extra document is read to know whether there is a next page.
+     */
+    NONE,
+    /**
+     * Count reused across pages of the same query until it expires.
+     */
+    CACHED,
+    /**
+     * Page and count computed by a single $facet aggregation.
+     */
+    FACET
+}
@@ -1,6 +1,13 @@
 package git.dimitrikvirik.contactbook.model.enums;
 
-public enum UserScope {
+import org.springframework.security.core.GrantedAuthority;
+
+public enum UserScope implements GrantedAuthority {
     CONTACT_BOOK_READ,
-    CONTACT_BOOK_WRITE
+    CONTACT_BOOK_WRITE;
+
+    @Override
+    public String getAuthority() {
+        return name();
+    }
 }
@@ -0,0 +1,63 @@
+package git.dimitrikvirik.contactbook.model.param;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Position after the last contact book of a page: the sort key of that contact book plus its id.
+ * Travels to clients as an opaque url-safe token.
+ */
+public record ContactBookCursor(ContactBookOrder order,
+                                String lastname,
+                                String firstname,
+                                String id) {
+
+    public static ContactBookCursor after(ContactBookOrder order, ContactBookEntity last) {
+        return order == ContactBookOrder.NAME
+                ? new ContactBookCursor(order, last.getLastname(), last.getFirstname(), last.getId())
+                : new ContactBookCursor(order, null, null, last.getId());
+    }
+
+    public static ContactBookCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            ContactBookOrder order = ContactBookOrder.values()[in.readUnsignedByte()];
+            return new ContactBookCursor(order, readNullable(in), readNullable(in), in.readUTF());
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(order.ordinal());
+            writeNullable(out, lastname);
+            writeNullable(out, firstname);
+            out.writeUTF(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
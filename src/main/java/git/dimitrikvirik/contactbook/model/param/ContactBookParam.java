@@ -1,11 +1,19 @@
 package git.dimitrikvirik.contactbook.model.param;
 
+import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
+import org.hibernate.validator.constraints.Length;
 
 @Builder
-public record ContactBookParam(String firstname,
+public record ContactBookParam(@NotBlank
+                               @Length(max = 100)
+                               String firstname,
+                               @Length(max = 100)
                                String lastname,
+                               @Length(max = 50)
                                String phone,
+                               @Length(max = 254)
                                String email,
+                               @Length(max = 500)
                                String address) {
 }
@@ -3,5 +3,6 @@ package git.dimitrikvirik.contactbook.model.param;
 public record ContactBookSearchParam(String firstname,
                                      String lastname,
                                      String address,
-                                     String phone) {
+                                     String phone,
+                                     String phoneSuffix) {
 }
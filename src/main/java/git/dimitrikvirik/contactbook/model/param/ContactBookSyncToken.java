@@ -0,0 +1,69 @@
+package git.dimitrikvirik.contactbook.model.param;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Sync position of a client. While the first full download is in progress ({@code snapshot}) it is the id of
+ * the last contact book sent; afterwards it is the last change and the last deletion sent, each as a time
+ * plus an id for ties. Travels to clients as an opaque url-safe token.
+ */
+public record ContactBookSyncToken(boolean snapshot,
+                                   String snapshotAfterId,
+                                   Instant changedAfter,
+                                   String changedAfterId,
+                                   Instant deletedAfter,
+                                   String deletedAfterId) {
+
+    /**
+     * Start of a full download; changes from {@code since} on are sent once it is complete.
+     */
+    public static ContactBookSyncToken snapshot(Instant since, String afterId) {
+        return new ContactBookSyncToken(true, afterId, since, null, since, null);
+    }
+
+    public static ContactBookSyncToken decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            return new ContactBookSyncToken(in.readBoolean(), readNullable(in),
+                    Instant.ofEpochMilli(in.readLong()), readNullable(in),
+                    Instant.ofEpochMilli(in.readLong()), readNullable(in));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sync token");
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(snapshot);
+            writeNullable(out, snapshotAfterId);
+            out.writeLong(changedAfter.toEpochMilli());
+            writeNullable(out, changedAfterId);
+            out.writeLong(deletedAfter.toEpochMilli());
+            writeNullable(out, deletedAfterId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
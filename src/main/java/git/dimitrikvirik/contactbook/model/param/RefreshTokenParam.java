@@ -0,0 +1,6 @@
+package git.dimitrikvirik.contactbook.model.param;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenParam(@NotBlank String refreshToken) {
+}
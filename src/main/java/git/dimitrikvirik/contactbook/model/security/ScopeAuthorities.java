@@ -0,0 +1,70 @@
+package git.dimitrikvirik.contactbook.model.security;
+
+import git.dimitrikvirik.contactbook.model.enums.UserScope;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared, immutable authority lists for every combination of {@link UserScope}s,
+ * indexed by the bitmask of scope ordinals.
+ */
+public final class ScopeAuthorities {
+
+    private static final List<GrantedAuthority>[] BY_MASK = buildAll();
+
+    private ScopeAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(Collection<String> scopes) {
+        if (scopes == null) {
+            return BY_MASK[0];
+        }
+        int mask = 0;
+        for (String scope : scopes) {
+            int ordinal = ordinalOf(scope);
+            if (ordinal < 0) {
+                return withUnknownScopes(scopes);
+            }
+            mask |= 1 << ordinal;
+        }
+        return BY_MASK[mask];
+    }
+
+    private static int ordinalOf(String scope) {
+        for (UserScope userScope : UserScope.values()) {
+            if (userScope.name().equals(scope)) {
+                return userScope.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    private static List<GrantedAuthority> withUnknownScopes(Collection<String> scopes) {
+        List<GrantedAuthority> authorities = new ArrayList<>(scopes.size());
+        for (String scope : scopes) {
+            int ordinal = ordinalOf(scope);
+            authorities.add(ordinal < 0 ? new SimpleGrantedAuthority(scope) : UserScope.values()[ordinal]);
+        }
+        return List.copyOf(authorities);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GrantedAuthority>[] buildAll() {
+        UserScope[] values = UserScope.values();
+        List<GrantedAuthority>[] all = new List[1 << values.length];
+        for (int mask = 0; mask < all.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>(values.length);
+            for (UserScope scope : values) {
+                if ((mask & (1 << scope.ordinal())) != 0) {
+                    authorities.add(scope);
+                }
+            }
+            all[mask] = List.copyOf(authorities);
+        }
+        return all;
+    }
+}
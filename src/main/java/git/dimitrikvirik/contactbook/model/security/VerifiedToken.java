@@ -0,0 +1,12 @@
+package git.dimitrikvirik.contactbook.model.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+/**
+ * @param issuedAtMillis issue time of the token in milliseconds, read once so that the revocation check does not allocate
+ */
+public record VerifiedToken(Claims claims,
+                            PreAuthenticatedAuthenticationToken authentication,
+                            long issuedAtMillis) {
+}
@@ -0,0 +1,12 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.CacheInvalidationEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+public interface CacheInvalidationRepository extends MongoRepository<CacheInvalidationEntity, String> {
+
+    Stream<CacheInvalidationEntity> streamByCreatedAtGreaterThanEqualOrderByCreatedAt(Instant createdAt);
+}
@@ -0,0 +1,19 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+public class ContactBookEntityCallback implements BeforeConvertCallback<ContactBookEntity> {
+
+    @Override
+    public ContactBookEntity onBeforeConvert(ContactBookEntity entity, String collection) {
+        ContactBookNormalizer.normalize(entity);
+        entity.setUpdatedAt(Instant.now());
+        return entity;
+    }
+}
@@ -5,10 +5,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
 
 public interface ContactBookRepository extends MongoRepository<ContactBookEntity, String> {
 
     Page<ContactBookEntity> findAllByOwnerUserId(String ownerUserId, Pageable pageable);
 
+    Optional<ContactBookEntity> findByIdAndOwnerUserId(String id, String ownerUserId);
+
+    long deleteByIdAndOwnerUserId(String id, String ownerUserId);
 
 }
@@ -0,0 +1,8 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.JobEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface JobRepository extends MongoRepository<JobEntity, String> {
+
+}
@@ -0,0 +1,7 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.MigrationEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MigrationRepository extends MongoRepository<MigrationEntity, String> {
+}
@@ -0,0 +1,23 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Component
+@Profile("reactive")
+public class ReactiveContactBookEntityCallback implements ReactiveBeforeConvertCallback<ContactBookEntity> {
+
+    @Override
+    public Publisher<ContactBookEntity> onBeforeConvert(ContactBookEntity entity, String collection) {
+        ContactBookNormalizer.normalize(entity);
+        entity.setUpdatedAt(Instant.now());
+        return Mono.just(entity);
+    }
+}
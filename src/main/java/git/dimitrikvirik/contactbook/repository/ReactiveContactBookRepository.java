@@ -0,0 +1,13 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveContactBookRepository extends ReactiveMongoRepository<ContactBookEntity, String> {
+
+    Mono<ContactBookEntity> findByIdAndOwnerUserId(String id, String ownerUserId);
+
+    Mono<Long> deleteByIdAndOwnerUserId(String id, String ownerUserId);
+
+}
@@ -0,0 +1,15 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.RefreshTokenEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshTokenEntity, String> {
+
+    Optional<RefreshTokenEntity> findByTokenHash(String tokenHash);
+
+    long deleteByFamilyId(String familyId);
+
+    long deleteByUserId(String userId);
+}
@@ -0,0 +1,7 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.ResumeTokenEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ResumeTokenRepository extends MongoRepository<ResumeTokenEntity, String> {
+}
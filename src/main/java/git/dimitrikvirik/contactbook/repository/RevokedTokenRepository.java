@@ -0,0 +1,12 @@
+package git.dimitrikvirik.contactbook.repository;
+
+import git.dimitrikvirik.contactbook.model.entity.RevokedTokenEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedTokenEntity, String> {
+
+    Stream<RevokedTokenEntity> streamByRevokedAtGreaterThanEqualOrderByRevokedAt(Instant revokedAt);
+}
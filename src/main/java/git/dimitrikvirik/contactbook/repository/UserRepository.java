@@ -8,6 +8,4 @@ import java.util.Optional;
 public interface UserRepository extends MongoRepository<UserEntity, String> {
 
     Optional<UserEntity> findByUsername(String username);
-
-    boolean existsByUsername(String username);
 }
@@ -0,0 +1,15 @@
+package git.dimitrikvirik.contactbook.service;
+
+import java.util.List;
+
+/**
+ * Documents of {@code collection} were changed or deleted, possibly by another instance. A batch write
+ * arrives as one event with the ids of the batch. {@code null} ids mean that changes may have been missed
+ * and everything cached from the collection is stale.
+ */
+public record CacheInvalidationEvent(String collection, List<String> ids) {
+
+    public boolean invalidatesAll() {
+        return ids == null;
+    }
+}
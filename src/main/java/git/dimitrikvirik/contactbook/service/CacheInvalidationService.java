@@ -0,0 +1,305 @@
+package git.dimitrikvirik.contactbook.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import git.dimitrikvirik.contactbook.model.entity.CacheInvalidationEntity;
+import git.dimitrikvirik.contactbook.model.entity.ResumeTokenEntity;
+import git.dimitrikvirik.contactbook.repository.CacheInvalidationRepository;
+import git.dimitrikvirik.contactbook.repository.ResumeTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Turns writes to {@code contact_books} and {@code users} by any instance into {@link CacheInvalidationEvent}s,
+ * so that the in-process caches of every instance, including the typeahead index, pick up what another
+ * instance created, changed or deleted.
+ * <p>
+ * On a replica set or sharded cluster each collection is watched through a change stream. The resume token
+ * is saved every {@code cacheInvalidation.pollInterval} under {@code cacheInvalidation.nodeId}, so a restarted
+ * or reconnected instance continues where it stopped; when that position is no longer in the oplog everything
+ * cached from the collection is invalidated instead. A standalone server has no change streams: writers then
+ * record the changed ids in {@code cache_invalidations}, which every instance polls.
+ * <p>
+ * Either way the ids of up to {@value #MAX_IDS_PER_EVENT} writes that arrive together, e.g. a batch of an
+ * import or of deleting all contact books, become one event, so that a listener can read them back at once.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService implements SmartInitializingSingleton {
+
+    public static final String CONTACT_BOOKS = "contact_books";
+
+    public static final String USERS = "users";
+
+    private static final List<String> WATCHED_COLLECTIONS = List.of(CONTACT_BOOKS, USERS);
+
+    private static final Set<String> DOCUMENT_CHANGES = Set.of("insert", "update", "replace", "delete");
+
+    private static final Bson CHANGES = Aggregates.match(Filters.in("operationType",
+            "insert", "update", "replace", "delete", "drop", "rename", "dropDatabase", "invalidate"));
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    static final int MAX_IDS_PER_EVENT = 1000;
+
+    /**
+     * Entries are read again for this long after their creation time, in case another instance's clock is behind.
+     */
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+
+    private final ResumeTokenRepository resumeTokenRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId;
+
+    /**
+     * Tells this instance's own entries in {@code cache_invalidations} apart, which it already invalidated locally.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Duration pollInterval;
+
+    private final ExecutorService watchers = Executors.newFixedThreadPool(WATCHED_COLLECTIONS.size());
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile boolean changeStreams;
+
+    private volatile boolean running = true;
+
+    private Instant polledUntil = Instant.now();
+
+    /**
+     * Entries read by the last poll, which the next poll reads again because of the clock skew window.
+     */
+    private Set<String> polled = new HashSet<>();
+
+    public CacheInvalidationService(MongoTemplate mongoTemplate,
+                                    CacheInvalidationRepository cacheInvalidationRepository,
+                                    ResumeTokenRepository resumeTokenRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${cacheInvalidation.nodeId:local}") String nodeId,
+                                    @Value("${cacheInvalidation.pollInterval:1s}") Duration pollInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.resumeTokenRepository = resumeTokenRepository;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        changeStreams = supportsChangeStreams();
+        if (changeStreams) {
+            log.info("Invalidating caches through change streams on {}", WATCHED_COLLECTIONS);
+            WATCHED_COLLECTIONS.forEach(collection -> watchers.execute(() -> watch(collection)));
+        } else {
+            log.info("Change streams need a replica set, invalidating caches by polling cache_invalidations");
+            poller.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records that the documents were changed, for the other instances to invalidate. A no-op with change
+     * streams, which see every write on their own. The caller invalidates its own caches.
+     */
+    public void publish(String collection, Collection<String> ids) {
+        if (changeStreams || ids.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<String> idList = List.copyOf(ids);
+        List<CacheInvalidationEntity> invalidations = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += MAX_IDS_PER_EVENT) {
+            invalidations.add(CacheInvalidationEntity.builder()
+                    .collectionName(collection)
+                    .documentIds(idList.subList(from, Math.min(from + MAX_IDS_PER_EVENT, idList.size())))
+                    .nodeId(instanceId)
+                    .createdAt(now)
+                    .build());
+        }
+        cacheInvalidationRepository.insert(invalidations);
+    }
+
+    public void publish(String collection, String id) {
+        publish(collection, List.of(id));
+    }
+
+    private boolean supportsChangeStreams() {
+        try {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
+        } catch (RuntimeException e) {
+            log.warn("Could not tell whether the server supports change streams: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch(String collection) {
+        BsonDocument resumeToken = loadResumeToken(collection);
+        boolean reconnecting = false;
+        while (running) {
+            if (reconnecting && resumeToken == null) {
+                // changes between the failure and the new stream cannot be replayed
+                invalidate(collection, null);
+            }
+            reconnecting = true;
+            ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(collection)
+                    .watch(List.of(CHANGES))
+                    .maxAwaitTime(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+            if (resumeToken != null) {
+                changes = changes.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                long savedAt = System.nanoTime();
+                List<String> changed = new ArrayList<>();
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null && !DOCUMENT_CHANGES.contains(change.getOperationTypeString())) {
+                        // the collection was dropped or renamed, this stream cannot be resumed
+                        invalidate(collection, null);
+                        resumeToken = null;
+                        reconnecting = false;
+                        break;
+                    }
+                    if (change != null) {
+                        changed.add(id(change.getDocumentKey().get("_id")));
+                    }
+                    if (!changed.isEmpty() && (change == null || changed.size() == MAX_IDS_PER_EVENT)) {
+                        invalidate(collection, changed);
+                        changed = new ArrayList<>();
+                    }
+                    // only past invalidated changes, so that a reconnect replays the pending ones
+                    if (changed.isEmpty() && cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    if (System.nanoTime() - savedAt >= pollInterval.toNanos() && resumeToken != null) {
+                        saveResumeToken(collection, resumeToken);
+                        savedAt = System.nanoTime();
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.warn("Change stream on {} fell behind the oplog, invalidating all of its cached documents", collection);
+                    resumeToken = null;
+                } else if (running) {
+                    log.warn("Change stream on {} failed, reconnecting", collection, e);
+                    pause();
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.warn("Change stream on {} failed, reconnecting", collection, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void invalidate(String collection, List<String> ids) {
+        meterRegistry.counter("contactbook.cache.invalidations", "collection", collection).increment(ids == null ? 1 : ids.size());
+        eventPublisher.publishEvent(new CacheInvalidationEvent(collection, ids));
+    }
+
+    private static String id(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private BsonDocument loadResumeToken(String collection) {
+        return resumeTokenRepository.findById(nodeId + ":" + collection)
+                .map(token -> BsonDocument.parse(token.getResumeToken()))
+                .orElse(null);
+    }
+
+    private void saveResumeToken(String collection, BsonDocument resumeToken) {
+        resumeTokenRepository.save(ResumeTokenEntity.builder()
+                .id(nodeId + ":" + collection)
+                .resumeToken(resumeToken.toJson())
+                .updatedAt(Instant.now())
+                .build());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RETRY_DELAY.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private synchronized void poll() {
+        Instant since = polledUntil.minus(CLOCK_SKEW);
+        Set<String> previouslyPolled = polled;
+        polled = new HashSet<>();
+        try (Stream<CacheInvalidationEntity> invalidations = cacheInvalidationRepository.streamByCreatedAtGreaterThanEqualOrderByCreatedAt(since)) {
+            invalidations.forEach(invalidation -> {
+                polled.add(invalidation.getId());
+                if (!instanceId.equals(invalidation.getNodeId()) && !previouslyPolled.contains(invalidation.getId())) {
+                    // entries without ids, e.g. written by an older version, invalidate everything
+                    invalidate(invalidation.getCollectionName(), invalidation.getDocumentIds());
+                }
+                if (invalidation.getCreatedAt().isAfter(polledUntil)) {
+                    polledUntil = invalidation.getCreatedAt();
+                }
+            });
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Polling cache invalidations failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        watchers.shutdownNow();
+        poller.shutdownNow();
+    }
+}
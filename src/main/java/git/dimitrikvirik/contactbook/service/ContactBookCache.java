@@ -0,0 +1,321 @@
+package git.dimitrikvirik.contactbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookCachePolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Contact books by id, bounded by entry count and estimated memory, for repeated reads of the same contacts.
+ * <p>
+ * {@link ContactBookService} invalidates an id after every write to it. A read that missed loads the contact
+ * book from Mongo and caches it only if no write to the same id happened meanwhile. The check and the put are
+ * atomic with respect to invalidation of the id, so a reader that loaded the previous version cannot make it
+ * visible after the write returned. Writes are tracked per stripe of ids
+ * rather than per id, so the bookkeeping does not grow with the collection. Writes of other instances
+ * arrive as {@link CacheInvalidationEvent}s.
+ */
+@Component
+@Profile("!reactive")
+public class ContactBookCache {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray writes = new AtomicLongArray(STRIPES);
+
+    private final Store store;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public ContactBookCache(@Value("${contactBook.cache.policy:TINY_LFU}") ContactBookCachePolicy policy,
+                            @Value("${contactBook.cache.maxEntries:100000}") long maxEntries,
+                            @Value("${contactBook.cache.maxMemory:64MB}") DataSize maxMemory,
+                            @Value("${contactBook.cache.ttl:10m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("contactbook.cache.requests")
+                .description("Contact book reads by id served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("contactbook.cache.requests")
+                .description("Contact book reads by id served from the cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("contactbook.cache.evictions")
+                .description("Contact books evicted from the cache for size, memory or age")
+                .register(meterRegistry);
+        // every entry weighs at least its share of the memory bound, so the weight also bounds the entry count
+        long minWeight = Math.max(1, maxMemory.toBytes() / Math.max(1, maxEntries));
+        Function<ContactBookDTO, Integer> weigher = contactBook -> (int) Math.max(minWeight, estimatedBytes(contactBook));
+        this.store = switch (policy) {
+            case TINY_LFU -> new CaffeineStore(maxMemory.toBytes(), ttl, weigher);
+            case LRU -> new LruStore(maxMemory.toBytes(), ttl, weigher);
+            case NONE -> new NoStore();
+        };
+        Gauge.builder("contactbook.cache.size", this, cache -> cache.store.size())
+                .description("Contact books in the cache")
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+        Gauge.builder("contactbook.cache.memory", this, cache -> cache.store.weight())
+                .description("Estimated heap used by the cached contact books")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The cached contact book if it belongs to the owner, otherwise the one returned by the loader.
+     * The loader is expected to throw when the contact book is missing or belongs to someone else.
+     */
+    public ContactBookDTO get(String id, String ownerUserId, Function<String, ContactBookDTO> loader) {
+        ContactBookDTO cached = store.get(id);
+        if (cached != null && ownerUserId.equals(cached.ownerUserId())) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        int stripe = stripe(id);
+        long writesBeforeLoad = writes.get(stripe);
+        ContactBookDTO loaded = loader.apply(id);
+        store.putIfUnchanged(id, loaded, () -> writes.get(stripe) == writesBeforeLoad);
+        return loaded;
+    }
+
+    /**
+     * The cached contact book if it belongs to the owner, without loading it otherwise.
+     */
+    public ContactBookDTO getIfPresent(String id, String ownerUserId) {
+        ContactBookDTO cached = store.get(id);
+        return cached != null && ownerUserId.equals(cached.ownerUserId()) ? cached : null;
+    }
+
+    /**
+     * Must be called after the write to the contact book reached Mongo and before the write returns.
+     */
+    public void invalidate(String id) {
+        writes.incrementAndGet(stripe(id));
+        store.invalidate(id);
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationService.CONTACT_BOOKS.equals(event.collection())) {
+            return;
+        }
+        if (event.invalidatesAll()) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                writes.incrementAndGet(stripe);
+            }
+            store.invalidateAll();
+        } else {
+            event.ids().forEach(this::invalidate);
+        }
+    }
+
+    private static int stripe(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static long estimatedBytes(ContactBookDTO contactBook) {
+        // map entry, key and record, plus every string field
+        return 160 + stringBytes(contactBook.id()) + stringBytes(contactBook.ownerUserId())
+                + stringBytes(contactBook.firstname()) + stringBytes(contactBook.lastname())
+                + stringBytes(contactBook.email()) + stringBytes(contactBook.phone())
+                + stringBytes(contactBook.address());
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private interface Store {
+
+        ContactBookDTO get(String id);
+
+        /**
+         * Puts the contact book if {@code unchanged} holds, checked under the same lock as {@link #invalidate}.
+         */
+        void putIfUnchanged(String id, ContactBookDTO contactBook, BooleanSupplier unchanged);
+
+        void invalidate(String id);
+
+        void invalidateAll();
+
+        long size();
+
+        long weight();
+    }
+
+    private final class CaffeineStore implements Store {
+
+        private final Cache<String, ContactBookDTO> cache;
+
+        CaffeineStore(long maxWeight, Duration ttl, Function<ContactBookDTO, Integer> weigher) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxWeight)
+                    .weigher((String id, ContactBookDTO contactBook) -> weigher.apply(contactBook))
+                    .expireAfterWrite(ttl)
+                    .evictionListener((id, contactBook, cause) -> evictions.increment())
+                    .build();
+        }
+
+        @Override
+        public ContactBookDTO get(String id) {
+            return cache.getIfPresent(id);
+        }
+
+        @Override
+        public void putIfUnchanged(String id, ContactBookDTO contactBook, BooleanSupplier unchanged) {
+            cache.asMap().compute(id, (key, current) -> unchanged.getAsBoolean() ? contactBook : current);
+        }
+
+        @Override
+        public void invalidate(String id) {
+            cache.invalidate(id);
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public long size() {
+            return cache.estimatedSize();
+        }
+
+        @Override
+        public long weight() {
+            return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+        }
+    }
+
+    private final class LruStore implements Store {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final long maxWeight;
+
+        private final long ttlNanos;
+
+        private final Function<ContactBookDTO, Integer> weigher;
+
+        private long weight;
+
+        LruStore(long maxWeight, Duration ttl, Function<ContactBookDTO, Integer> weigher) {
+            this.maxWeight = maxWeight;
+            this.ttlNanos = ttl.toNanos();
+            this.weigher = weigher;
+        }
+
+        @Override
+        public synchronized ContactBookDTO get(String id) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.writtenAt() > ttlNanos) {
+                remove(id);
+                evictions.increment();
+                return null;
+            }
+            return entry.contactBook();
+        }
+
+        @Override
+        public synchronized void putIfUnchanged(String id, ContactBookDTO contactBook, BooleanSupplier unchanged) {
+            if (!unchanged.getAsBoolean()) {
+                return;
+            }
+            remove(id);
+            Entry entry = new Entry(contactBook, weigher.apply(contactBook), System.nanoTime());
+            entries.put(id, entry);
+            weight += entry.weight();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        @Override
+        public synchronized void invalidate(String id) {
+            remove(id);
+        }
+
+        @Override
+        public synchronized void invalidateAll() {
+            entries.clear();
+            weight = 0;
+        }
+
+        @Override
+        public synchronized long size() {
+            return entries.size();
+        }
+
+        @Override
+        public synchronized long weight() {
+            return weight;
+        }
+
+        private void remove(String id) {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+        }
+    }
+
+    private record Entry(ContactBookDTO contactBook, int weight, long writtenAt) {
+    }
+
+    private static final class NoStore implements Store {
+
+        @Override
+        public ContactBookDTO get(String id) {
+            return null;
+        }
+
+        @Override
+        public void putIfUnchanged(String id, ContactBookDTO contactBook, BooleanSupplier unchanged) {
+        }
+
+        @Override
+        public void invalidate(String id) {
+        }
+
+        @Override
+        public void invalidateAll() {
+        }
+
+        @Override
+        public long size() {
+            return 0;
+        }
+
+        @Override
+        public long weight() {
+            return 0;
+        }
+    }
+}
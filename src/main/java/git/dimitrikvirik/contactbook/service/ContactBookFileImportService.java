@@ -0,0 +1,176 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.format.ContactBookReader;
+import git.dimitrikvirik.contactbook.format.CsvContactBookReader;
+import git.dimitrikvirik.contactbook.format.VCardContactBookReader;
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.entity.JobEntity;
+import git.dimitrikvirik.contactbook.model.enums.ImportFileFormat;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports vCard and CSV files as {@link JobService} jobs. The upload is spooled to a temporary file, then the
+ * job thread cuts it into chunks of records, a bounded pool shared by all imports parses the
+ * chunks in parallel, and the job thread drops duplicates of the owner's contacts (and of earlier rows)
+ * by phone digits and email and writes the rest in unordered bulk inserts. At most two chunks per
+ * parser thread are in flight per import, so memory does not depend on the file size.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class ContactBookFileImportService {
+
+    private static final String CREATED = "created";
+
+    private static final String DUPLICATES = "duplicates";
+
+    private static final String INVALID = "invalid";
+
+    private static final String FAILED = "failed";
+
+    private final ContactBookService contactBookService;
+
+    private final JobService jobService;
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    private final int batchSize;
+
+    private final int maxChunksInFlight;
+
+    private final ThreadPoolExecutor parseExecutor;
+
+    public ContactBookFileImportService(ContactBookService contactBookService,
+                                        JobService jobService,
+                                        Validator validator,
+                                        @Value("${contactBook.import.chunkSize:500}") int chunkSize,
+                                        @Value("${contactBook.import.batchSize:1000}") int batchSize,
+                                        @Value("${contactBook.import.parseThreads:0}") int parseThreads) {
+        this.contactBookService = contactBookService;
+        this.jobService = jobService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        int parsers = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        this.maxChunksInFlight = parsers * 2;
+        // when the imports together get ahead of the parsers, the import thread parses the chunk itself
+        this.parseExecutor = new ThreadPoolExecutor(parsers, parsers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parsers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public JobEntity submit(ImportFileFormat format, InputStream upload, String ownerUserId) {
+        Path file;
+        try {
+            file = Files.createTempFile("contact-book-import-", "." + format.name().toLowerCase());
+            Files.copy(upload, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            return jobService.submit(ownerUserId, JobType.CONTACT_BOOK_IMPORT, progress -> run(progress, format, file, ownerUserId));
+        } catch (RuntimeException e) {
+            deleteFile(file);
+            throw e;
+        }
+    }
+
+    private void run(JobProgress progress, ImportFileFormat format, Path file, String ownerUserId) throws IOException, InterruptedException, ExecutionException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            ContactBookReader reader = format == ImportFileFormat.CSV ? new CsvContactBookReader(in) : new VCardContactBookReader(in);
+            Set<String> knownKeys = contactBookService.findDuplicateKeys(ownerUserId);
+            List<ContactBookEntity> batch = new ArrayList<>(batchSize);
+            Deque<Future<List<ContactBookParam>>> inFlight = new ArrayDeque<>();
+
+            String chunk;
+            while ((chunk = reader.nextChunk(chunkSize)) != null) {
+                String records = chunk;
+                inFlight.add(parseExecutor.submit(() -> reader.parse(records)));
+                if (inFlight.size() >= maxChunksInFlight) {
+                    add(progress, ownerUserId, inFlight.poll().get(), knownKeys, batch);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                add(progress, ownerUserId, inFlight.poll().get(), knownKeys, batch);
+            }
+            insert(progress, batch);
+        } finally {
+            deleteFile(file);
+        }
+    }
+
+    private void add(JobProgress progress, String ownerUserId, List<ContactBookParam> params, Set<String> knownKeys, List<ContactBookEntity> batch) {
+        for (ContactBookParam param : params) {
+            progress.processed(1);
+            if (!validator.validate(param).isEmpty()) {
+                progress.increment(INVALID);
+                continue;
+            }
+            ContactBookEntity contactBook = ContactBookMapper.toEntity(param, ownerUserId);
+            ContactBookNormalizer.normalize(contactBook);
+            List<String> keys = ContactBookNormalizer.duplicateKeys(contactBook);
+            if (keys.stream().anyMatch(knownKeys::contains)) {
+                progress.increment(DUPLICATES);
+                continue;
+            }
+            knownKeys.addAll(keys);
+            batch.add(contactBook);
+            if (batch.size() == batchSize) {
+                insert(progress, batch);
+            }
+        }
+    }
+
+    private void insert(JobProgress progress, List<ContactBookEntity> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int failures = contactBookService.insertAll(batch).size();
+        progress.add(FAILED, failures);
+        progress.add(CREATED, batch.size() - failures);
+        batch.clear();
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parseExecutor.shutdownNow();
+    }
+}
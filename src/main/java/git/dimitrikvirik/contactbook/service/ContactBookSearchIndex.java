@@ -0,0 +1,521 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.util.PhoneNumberUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory typeahead index over the contact books of every owner.
+ * <p>
+ * Each owner has its own inverted index from n-grams to sorted {@code int[]} postings of local document ids:
+ * the first one and two characters of every word (for short prefixes) and every trigram of every word
+ * (for longer prefixes and partial phone numbers). Candidates from the postings are verified against the
+ * normalized text of the document. Mongo stays the source of truth: the index is rebuilt from
+ * {@code contact_books} at startup and kept up to date by {@link ContactBookService} writes, and by
+ * {@link CacheInvalidationEvent}s for the writes of other instances.
+ */
+@Slf4j
+@Component
+public class ContactBookSearchIndex implements SmartInitializingSingleton {
+
+    private final Map<String, OwnerIndex> owners = new ConcurrentHashMap<>();
+
+    private final Map<String, String> ownerById = new ConcurrentHashMap<>();
+
+    private final MongoTemplate mongoTemplate;
+
+    public ContactBookSearchIndex(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        Gauge.builder("contactbook.search.index.memory", this, ContactBookSearchIndex::estimatedMemoryBytes)
+                .description("Estimated heap used by the in-memory contact book search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("contactbook.search.index.documents", this, ContactBookSearchIndex::documentCount)
+                .description("Contact books in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("contactbook.search.index.owners", owners, Map::size)
+                .description("Owners with an in-memory search index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        reload();
+        log.info("Indexed {} contact books of {} owners in {} ms", documentCount(), owners.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Reads the changed contact books again in one query, or every contact book when the changes are not known.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationService.CONTACT_BOOKS.equals(event.collection())) {
+            return;
+        }
+        if (event.invalidatesAll()) {
+            reload();
+            return;
+        }
+        Set<String> deleted = new HashSet<>(event.ids());
+        mongoTemplate.find(Query.query(Criteria.where("id").in(event.ids())), ContactBookEntity.class)
+                .forEach(contactBook -> {
+                    deleted.remove(contactBook.getId());
+                    index(contactBook);
+                });
+        deleted.forEach(this::remove);
+    }
+
+    /**
+     * Indexes every contact book in Mongo and removes the indexed ones that are no longer there.
+     * Contact books indexed while the reload runs are kept.
+     */
+    private void reload() {
+        Set<String> stale = new HashSet<>(ownerById.keySet());
+        try (Stream<ContactBookEntity> contactBooks = mongoTemplate.stream(new Query(), ContactBookEntity.class)) {
+            contactBooks.forEach(contactBook -> {
+                stale.remove(contactBook.getId());
+                index(contactBook);
+            });
+        }
+        stale.forEach(this::remove);
+    }
+
+    /**
+     * Indexes the contact book unless a newer version of it is indexed or it was removed recently,
+     * so that concurrent writes of the same contact book cannot leave an older version in the index.
+     */
+    public void index(ContactBookEntity contactBook) {
+        ContactBookDTO document = ContactBookMapper.toDTO(contactBook);
+        String owner = contactBook.getOwnerUserId();
+        String previousOwner;
+        while (true) {
+            OwnerIndex ownerIndex = owners.computeIfAbsent(owner, key -> new OwnerIndex());
+            ownerIndex.lock.writeLock().lock();
+            try {
+                if (ownerIndex.retired) {
+                    continue;
+                }
+                if (!ownerIndex.accepts(document)) {
+                    return;
+                }
+                previousOwner = ownerById.put(document.id(), owner);
+                ownerIndex.putLocked(document);
+                break;
+            } finally {
+                ownerIndex.lock.writeLock().unlock();
+            }
+        }
+        if (previousOwner != null && !previousOwner.equals(owner)) {
+            OwnerIndex previous = owners.get(previousOwner);
+            if (previous != null) {
+                previous.lock.writeLock().lock();
+                try {
+                    previous.removeLocked(document.id());
+                    retireIfEmpty(previousOwner, previous);
+                } finally {
+                    previous.lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    public void remove(String id) {
+        String owner = ownerById.get(id);
+        if (owner == null) {
+            return;
+        }
+        OwnerIndex ownerIndex = owners.get(owner);
+        if (ownerIndex == null) {
+            ownerById.remove(id, owner);
+            return;
+        }
+        ownerIndex.lock.writeLock().lock();
+        try {
+            ownerById.remove(id, owner);
+            ownerIndex.removeLocked(id);
+            retireIfEmpty(owner, ownerIndex);
+        } finally {
+            ownerIndex.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Contact books of the owner in which every word of the query is a prefix of some word,
+     * or, for queries of three or more digits, part of the phone number.
+     */
+    public List<ContactBookDTO> search(String ownerUserId, String query, int limit) {
+        OwnerIndex ownerIndex = owners.get(ownerUserId);
+        List<String> tokens = words(query);
+        if (ownerIndex == null || tokens.isEmpty()) {
+            return List.of();
+        }
+        return ownerIndex.search(tokens, limit);
+    }
+
+    public long documentCount() {
+        return ownerById.size();
+    }
+
+    public long estimatedMemoryBytes() {
+        long bytes = ownerById.size() * 120L;
+        for (OwnerIndex ownerIndex : owners.values()) {
+            bytes += ownerIndex.estimatedMemoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Drops the owner index once it holds neither documents nor recent removals. Must hold its write lock.
+     */
+    private void retireIfEmpty(String owner, OwnerIndex ownerIndex) {
+        if (ownerIndex.isEmpty()) {
+            ownerIndex.retired = true;
+            owners.remove(owner, ownerIndex);
+        }
+    }
+
+    private static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        if (value == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            boolean wordChar = i < value.length() && Character.isLetterOrDigit(value.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(value.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static String searchableText(ContactBookDTO contactBook) {
+        List<String> words = new ArrayList<>();
+        words.addAll(words(contactBook.firstname()));
+        words.addAll(words(contactBook.lastname()));
+        words.addAll(words(contactBook.email()));
+        words.addAll(words(contactBook.address()));
+        words.addAll(words(contactBook.phone()));
+        String digits = PhoneNumberUtil.digits(contactBook.phone());
+        if (digits != null) {
+            words.add(digits);
+        }
+        return String.join(" ", words);
+    }
+
+    private static boolean isDigits(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long edgeKey(char c0) {
+        return (1L << 48) | c0;
+    }
+
+    private static long edgeKey(char c0, char c1) {
+        return (2L << 48) | ((long) c0 << 16) | c1;
+    }
+
+    private static long trigramKey(char c0, char c1, char c2) {
+        return (3L << 48) | ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private static final class OwnerIndex {
+
+        private static final int COMPACTION_THRESHOLD = 1024;
+
+        /**
+         * How long a removed id is remembered, far longer than a write that indexes it can be in flight.
+         */
+        private static final long REMOVED_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Map<String, Integer> docIds = new HashMap<>();
+
+        private Map<Long, IntList> postings = new HashMap<>();
+
+        private ContactBookDTO[] documents = new ContactBookDTO[16];
+
+        private String[] texts = new String[16];
+
+        private final Map<String, Long> removedAt = new LinkedHashMap<>();
+
+        private int nextDocId;
+
+        private int removed;
+
+        private boolean retired;
+
+        boolean accepts(ContactBookDTO contactBook) {
+            expireRemoved();
+            if (removedAt.containsKey(contactBook.id())) {
+                return false;
+            }
+            Integer docId = docIds.get(contactBook.id());
+            if (docId == null || contactBook.version() == null) {
+                return true;
+            }
+            Long indexedVersion = documents[docId].version();
+            return indexedVersion == null || contactBook.version() >= indexedVersion;
+        }
+
+        void putLocked(ContactBookDTO contactBook) {
+            removeDocument(contactBook.id());
+            add(contactBook);
+            compactIfNeeded();
+        }
+
+        void removeLocked(String id) {
+            if (removeDocument(id)) {
+                // re-inserted so that the map stays in removal order
+                removedAt.remove(id);
+                removedAt.put(id, System.nanoTime());
+            }
+            expireRemoved();
+            compactIfNeeded();
+        }
+
+        boolean isEmpty() {
+            return docIds.isEmpty() && removedAt.isEmpty();
+        }
+
+        List<ContactBookDTO> search(List<String> tokens, int limit) {
+            lock.readLock().lock();
+            try {
+                IntList candidates = null;
+                for (String token : tokens) {
+                    IntList tokenCandidates = candidates(token);
+                    candidates = candidates == null ? tokenCandidates : intersect(candidates, tokenCandidates);
+                    if (candidates.size == 0) {
+                        return List.of();
+                    }
+                }
+                List<ContactBookDTO> result = new ArrayList<>(Math.min(limit, candidates.size));
+                for (int i = 0; i < candidates.size; i++) {
+                    int docId = candidates.values[i];
+                    if (documents[docId] != null && matchesAll(texts[docId], tokens)) {
+                        result.add(documents[docId]);
+                        if (result.size() == limit) {
+                            break;
+                        }
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long estimatedMemoryBytes() {
+            lock.readLock().lock();
+            try {
+                long bytes = (long) documents.length * 8 + (long) texts.length * 8 + docIds.size() * 64L;
+                for (IntList postingList : postings.values()) {
+                    bytes += 80 + postingList.values.length * 4L;
+                }
+                for (int docId = 0; docId < nextDocId; docId++) {
+                    if (texts[docId] != null) {
+                        // normalized text plus the fields of the stored dto
+                        bytes += 240 + texts[docId].length() * 4L;
+                    }
+                }
+                return bytes;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Candidates of one token. A single posting list is returned as is and only read under the read lock,
+         * only intersections allocate.
+         */
+        private IntList candidates(String token) {
+            if (token.length() == 1) {
+                return postingsOf(edgeKey(token.charAt(0)));
+            }
+            if (token.length() == 2) {
+                return postingsOf(edgeKey(token.charAt(0), token.charAt(1)));
+            }
+            IntList candidates = null;
+            for (int i = 0; i + 3 <= token.length(); i++) {
+                IntList trigramPostings = postingsOf(trigramKey(token.charAt(i), token.charAt(i + 1), token.charAt(i + 2)));
+                candidates = candidates == null ? trigramPostings : intersect(candidates, trigramPostings);
+                if (candidates.size == 0) {
+                    break;
+                }
+            }
+            return candidates;
+        }
+
+        private IntList postingsOf(long key) {
+            return postings.getOrDefault(key, IntList.EMPTY);
+        }
+
+        private static boolean matchesAll(String text, List<String> tokens) {
+            for (String token : tokens) {
+                boolean prefix = text.startsWith(token) || text.contains(" " + token);
+                if (!prefix && !(token.length() >= 3 && isDigits(token) && text.contains(token))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static IntList intersect(IntList left, IntList right) {
+            IntList result = new IntList(Math.min(left.size, right.size));
+            for (int i = 0, j = 0; i < left.size && j < right.size; ) {
+                if (left.values[i] < right.values[j]) {
+                    i++;
+                } else if (left.values[i] > right.values[j]) {
+                    j++;
+                } else {
+                    result.values[result.size++] = left.values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private void add(ContactBookDTO contactBook) {
+            int docId = nextDocId++;
+            if (docId == documents.length) {
+                documents = Arrays.copyOf(documents, docId * 2);
+                texts = Arrays.copyOf(texts, docId * 2);
+            }
+            String text = searchableText(contactBook);
+            documents[docId] = contactBook;
+            texts[docId] = text;
+            docIds.put(contactBook.id(), docId);
+
+            int wordStart = 0;
+            for (int i = 0; i <= text.length(); i++) {
+                if (i < text.length() && text.charAt(i) != ' ') {
+                    continue;
+                }
+                if (i > wordStart) {
+                    addPosting(edgeKey(text.charAt(wordStart)), docId);
+                    if (i - wordStart >= 2) {
+                        addPosting(edgeKey(text.charAt(wordStart), text.charAt(wordStart + 1)), docId);
+                    }
+                    for (int j = wordStart; j + 3 <= i; j++) {
+                        addPosting(trigramKey(text.charAt(j), text.charAt(j + 1), text.charAt(j + 2)), docId);
+                    }
+                }
+                wordStart = i + 1;
+            }
+        }
+
+        private void addPosting(long key, int docId) {
+            postings.computeIfAbsent(key, k -> new IntList()).addIfAbsent(docId);
+        }
+
+        private boolean removeDocument(String id) {
+            Integer docId = docIds.remove(id);
+            if (docId == null) {
+                return false;
+            }
+            documents[docId] = null;
+            texts[docId] = null;
+            removed++;
+            return true;
+        }
+
+        private void expireRemoved() {
+            long now = System.nanoTime();
+            Iterator<Long> removals = removedAt.values().iterator();
+            while (removals.hasNext() && now - removals.next() > REMOVED_TTL_NANOS) {
+                removals.remove();
+            }
+        }
+
+        private void compactIfNeeded() {
+            if (removed > COMPACTION_THRESHOLD && removed > nextDocId / 2) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            ContactBookDTO[] live = Arrays.stream(documents, 0, nextDocId)
+                    .filter(document -> document != null)
+                    .toArray(ContactBookDTO[]::new);
+            docIds = new HashMap<>();
+            postings = new HashMap<>();
+            documents = new ContactBookDTO[Math.max(16, live.length * 2)];
+            texts = new String[documents.length];
+            nextDocId = 0;
+            removed = 0;
+            for (ContactBookDTO contactBook : live) {
+                add(contactBook);
+            }
+        }
+    }
+
+    /**
+     * Growable array of ascending document ids.
+     */
+    private static final class IntList {
+
+        /**
+         * Postings of a missing key, never added to.
+         */
+        private static final IntList EMPTY = new IntList(0);
+
+        private int[] values;
+
+        private int size;
+
+        IntList() {
+            this(4);
+        }
+
+        IntList(int capacity) {
+            values = new int[capacity];
+        }
+
+        void addIfAbsent(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
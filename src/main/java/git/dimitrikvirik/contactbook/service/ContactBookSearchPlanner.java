@@ -0,0 +1,114 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import git.dimitrikvirik.contactbook.util.PhoneNumberUtil;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds one criterion per search field instead of one merged {@code $text} query, all of which must match:
+ * <ul>
+ *     <li>firstname and lastname: anchored prefix on the lowercase shadow field</li>
+ *     <li>phone: exact digits, or a case-insensitive substring when the value has no digits</li>
+ *     <li>phoneSuffix: anchored prefix on the reversed digits</li>
+ *     <li>address: {@code $text} to find candidates, every word must also be in the address</li>
+ * </ul>
+ * Without {@code $text} the query is hinted to the index of the most selective field.
+ */
+final class ContactBookSearchPlanner {
+
+    private static final String OWNER_USER_ID = "ownerUserId";
+
+    /**
+     * Rough fraction of contacts left per prefix character; lastnames repeat less than firstnames.
+     */
+    private static final double LASTNAME_PREFIX_SELECTIVITY = 1.0 / 12;
+
+    private static final double FIRSTNAME_PREFIX_SELECTIVITY = 1.0 / 8;
+
+    private ContactBookSearchPlanner() {
+    }
+
+    record SearchPlan(Query query, boolean filtered) {
+    }
+
+    private record IndexChoice(String index, double selectivity) {
+    }
+
+    static SearchPlan plan(ContactBookSearchParam searchParam, String ownerUserId) {
+        Criteria criteria = Criteria.where(OWNER_USER_ID).is(ownerUserId);
+        List<IndexChoice> indexes = new ArrayList<>();
+        boolean filtered = false;
+
+        String phoneDigits = PhoneNumberUtil.digits(searchParam.phone());
+        if (phoneDigits != null) {
+            criteria.and("phoneDigits").is(phoneDigits);
+            indexes.add(new IndexChoice("owner_phone_digits", 0));
+            filtered = true;
+        } else if (StringUtils.hasText(searchParam.phone())) {
+            criteria.and("phone").regex(escape(searchParam.phone().trim()), "i");
+            filtered = true;
+        }
+
+        String phoneSuffix = PhoneNumberUtil.digits(searchParam.phoneSuffix());
+        if (phoneSuffix != null) {
+            criteria.and("phoneDigitsReversed").regex("^" + PhoneNumberUtil.reversed(phoneSuffix));
+            indexes.add(new IndexChoice("owner_phone_digits_reversed", Math.pow(0.1, phoneSuffix.length())));
+            filtered = true;
+        }
+
+        String lastname = ContactBookNormalizer.lower(searchParam.lastname());
+        if (lastname != null) {
+            criteria.and("lastnameLower").regex("^" + escape(lastname));
+            indexes.add(new IndexChoice("owner_lastname_lower", Math.pow(LASTNAME_PREFIX_SELECTIVITY, lastname.length())));
+            filtered = true;
+        }
+
+        String firstname = ContactBookNormalizer.lower(searchParam.firstname());
+        if (firstname != null) {
+            criteria.and("firstnameLower").regex("^" + escape(firstname));
+            indexes.add(new IndexChoice("owner_firstname_lower", Math.pow(FIRSTNAME_PREFIX_SELECTIVITY, firstname.length())));
+            filtered = true;
+        }
+
+        if (StringUtils.hasText(searchParam.address())) {
+            List<Criteria> addressWords = new ArrayList<>();
+            for (String word : searchParam.address().trim().split("\\s+")) {
+                addressWords.add(Criteria.where("address").regex(escape(word), "i"));
+            }
+            criteria.andOperator(addressWords);
+            TextCriteria textCriteria = TextCriteria.forDefaultLanguage().caseSensitive(false).matching(searchParam.address());
+            return new SearchPlan(TextQuery.queryText(textCriteria).sortByScore().addCriteria(criteria), true);
+        }
+
+        Query query = Query.query(criteria);
+        indexes.stream()
+                .min(Comparator.comparingDouble(IndexChoice::selectivity))
+                .ifPresent(choice -> query.withHint(choice.index()));
+        return new SearchPlan(query, filtered);
+    }
+
+    /**
+     * Escapes regex metacharacters with a backslash, which keeps an anchored pattern a simple prefix
+     * that Mongo turns into tight index bounds (unlike {@code \Q...\E}).
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c) && !Character.isWhitespace(c)) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -1,66 +1,274 @@
 package git.dimitrikvirik.contactbook.service;
 
+import git.dimitrikvirik.contactbook.exception.PreconditionFailedException;
 import git.dimitrikvirik.contactbook.exception.ResourceNotFoundException;
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.dto.CursorPageDTO;
 import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookField;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookOrder;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
+import git.dimitrikvirik.contactbook.model.param.ContactBookCursor;
 import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
 import git.dimitrikvirik.contactbook.repository.ContactBookRepository;
-import jakarta.annotation.PostConstruct;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import git.dimitrikvirik.contactbook.util.ETags;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.TextCriteria;
-import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Transactional
 public class ContactBookService {
 
+    static final String OWNER_USER_ID = "ownerUserId";
+
+    static final String VERSION = "version";
+
+    private static final int STREAM_BATCH_SIZE = 1000;
+
     private final ContactBookRepository contactBookRepository;
 
     private final MongoTemplate mongoTemplate;
 
+    private final SearchCountCache searchCountCache;
+
+    private final ContactBookSearchIndex searchIndex;
 
+    private final ContactBookCache contactBookCache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final ContactBookSyncService contactBookSyncService;
 
     public ContactBookEntity save(ContactBookEntity contactBookEntity) {
-        return contactBookRepository.save(contactBookEntity);
+        ContactBookEntity saved = contactBookRepository.save(contactBookEntity);
+        contactBookCache.invalidate(saved.getId());
+        searchIndex.index(saved);
+        cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, saved.getId());
+        return saved;
+    }
+
+    /**
+     * Inserts the contact books with one unordered bulk write, so a rejected document does not stop the others.
+     * Ids are assigned up front to know the id of every inserted document even when some of them fail.
+     *
+     * @return the error of every contact book that was not inserted, by its position in the list
+     */
+    public Map<Integer, String> insertAll(List<ContactBookEntity> contactBookEntities) {
+        contactBookEntities.forEach(contactBook -> {
+            contactBook.setId(new ObjectId().toHexString());
+            // bulk inserts do not initialize the version like save does
+            contactBook.setVersion(0L);
+        });
+        Map<Integer, String> failures = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ContactBookEntity.class)
+                    .insert(contactBookEntities)
+                    .execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> failures.put(error.getIndex(), error.getMessage()));
+        }
+        List<String> inserted = new ArrayList<>(contactBookEntities.size() - failures.size());
+        for (int i = 0; i < contactBookEntities.size(); i++) {
+            if (!failures.containsKey(i)) {
+                searchIndex.index(contactBookEntities.get(i));
+                inserted.add(contactBookEntities.get(i).getId());
+            }
+        }
+        cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, inserted);
+        return failures;
+    }
+
+
+
+    /**
+     * @param fields fields to read, or {@code null} for whole documents; the others are left {@code null}
+     */
+    public Slice<ContactBookEntity> findAll(ContactBookSearchParam searchParam, String ownerUserId, Pageable pageable,
+                                            SearchCountMode countMode, Set<ContactBookField> fields) {
+        ContactBookSearchPlanner.SearchPlan plan = ContactBookSearchPlanner.plan(searchParam, ownerUserId);
+        if (fields == null && !plan.filtered() && countMode == SearchCountMode.EXACT) {
+            return contactBookRepository.findAllByOwnerUserId(ownerUserId, pageable);
+        }
+        Query query = plan.query().with(pageable);
+        if (fields != null) {
+            fields.forEach(field -> query.fields().include(field.getProperty()));
+        }
+        return findAll(query, pageable, countMode);
+    }
+
+    private Slice<ContactBookEntity> findAll(Query query, Pageable pageable, SearchCountMode countMode) {
+        return switch (countMode) {
+            case EXACT -> new PageImpl<>(mongoTemplate.find(query, ContactBookEntity.class), pageable, count(query));
+            case CACHED -> new PageImpl<>(mongoTemplate.find(query, ContactBookEntity.class), pageable,
+                    searchCountCache.get(query.getQueryObject().toJson(), key -> count(query)));
+            case NONE -> findSlice(query, pageable);
+            case FACET -> findFacetPage(query, pageable);
+        };
     }
 
+    private long count(Query query) {
+        return mongoTemplate.count(countQuery(query), ContactBookEntity.class);
+    }
 
+    static Query countQuery(Query query) {
+        return Query.of(query).limit(-1).skip(-1);
+    }
+
+    private Slice<ContactBookEntity> findSlice(Query query, Pageable pageable) {
+        List<ContactBookEntity> content = mongoTemplate.find(query.limit(pageable.getPageSize() + 1), ContactBookEntity.class);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
 
-    public Page<ContactBookEntity> findAll(ContactBookSearchParam searchParam, String ownerUserId, Pageable pageable) {
-        //build mongo query
-        StringBuilder sb = new StringBuilder();
-        if (StringUtils.hasText(searchParam.firstname())) {
-            sb.append(searchParam.firstname()).append(" ");
+    /**
+     * Reads the requested page and the total in one round trip:
+     * {@code $match -> $sort -> $facet {content: [$skip, $limit], total: [$count]}}.
+     */
+    private Page<ContactBookEntity> findFacetPage(Query query, Pageable pageable) {
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(ContactBookEntity.class))
+                .aggregate(facetPipeline(mongoTemplate.getConverter(), query, pageable))
+                .first();
+        return readFacetPage(mongoTemplate.getConverter(), result, pageable);
+    }
+
+    static List<Document> facetPipeline(MongoConverter converter, Query query, Pageable pageable) {
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(ContactBookEntity.class);
+        QueryMapper queryMapper = new QueryMapper(converter);
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", queryMapper.getMappedObject(query.getQueryObject(), entity)));
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        if (!sort.isEmpty()) {
+            pipeline.add(new Document("$sort", sort));
+        }
+        List<Document> content = new ArrayList<>(List.of(new Document("$skip", pageable.getOffset()), new Document("$limit", pageable.getPageSize())));
+        Document fields = queryMapper.getMappedFields(query.getFieldsObject(), entity);
+        if (!fields.isEmpty()) {
+            content.add(new Document("$project", fields));
         }
-        if (StringUtils.hasText(searchParam.lastname())) {
-            sb.append(searchParam.lastname()).append(" ");
+        pipeline.add(new Document("$facet", new Document()
+                .append("content", content)
+                .append("total", List.of(new Document("$count", "count")))));
+        return pipeline;
+    }
+
+    static Page<ContactBookEntity> readFacetPage(MongoConverter converter, Document result, Pageable pageable) {
+        List<ContactBookEntity> content = new ArrayList<>();
+        long total = 0;
+        if (result != null) {
+            for (Document document : result.getList("content", Document.class)) {
+                content.add(converter.read(ContactBookEntity.class, document));
+            }
+            List<Document> totals = result.getList("total", Document.class);
+            total = totals.isEmpty() ? 0 : ((Number) totals.get(0).get("count")).longValue();
         }
-        if (StringUtils.hasText(searchParam.address())) {
-            sb.append(searchParam.address()).append(" ");
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Keyset pagination: seeks past the cursor on the index matching the order instead of skipping,
+     * and reads one extra document to know whether there is a next page, so no count is needed.
+     */
+    public CursorPageDTO<ContactBookEntity> findPage(String ownerUserId, ContactBookOrder order, ContactBookCursor after, int size) {
+        Criteria criteria = Criteria.where(OWNER_USER_ID).is(ownerUserId);
+        Query query;
+        if (order == ContactBookOrder.NAME) {
+            if (after != null) {
+                if (after.lastname() != null) {
+                    criteria.and("lastname").gte(after.lastname());
+                }
+                criteria.orOperator(
+                        greaterThan("lastname", after.lastname()),
+                        Criteria.where("lastname").is(after.lastname()).andOperator(greaterThan("firstname", after.firstname())),
+                        Criteria.where("lastname").is(after.lastname()).and("firstname").is(after.firstname()).and("id").gt(after.id())
+                );
+            }
+            query = Query.query(criteria).with(Sort.by("lastname", "firstname", "id")).withHint("owner_lastname_firstname");
+        } else {
+            if (after != null) {
+                criteria.and("id").gt(after.id());
+            }
+            query = Query.query(criteria).with(Sort.by("id")).withHint("owner_id");
         }
-        if (StringUtils.hasText(searchParam.phone())) {
-            sb.append(searchParam.phone()).append(" ");
+        List<ContactBookEntity> content = mongoTemplate.find(query.limit(size + 1), ContactBookEntity.class);
+        if (content.size() <= size) {
+            return new CursorPageDTO<>(content, null);
         }
+        content = content.subList(0, size);
+        return new CursorPageDTO<>(content, ContactBookCursor.after(order, content.get(size - 1)).encode());
+    }
 
+    /**
+     * All contact books of the owner in {@code _id} order, read lazily through a cursor.
+     * The stream must be closed to release the cursor.
+     */
+    public Stream<ContactBookEntity> streamByOwnerUserId(String ownerUserId) {
+        Query query = Query.query(Criteria.where(OWNER_USER_ID).is(ownerUserId))
+                .with(Sort.by("id"))
+                .withHint("owner_id")
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, ContactBookEntity.class);
+    }
 
-        if (sb.length() != 0) {
-            TextCriteria criteria = TextCriteria.forDefaultLanguage().caseSensitive(false).matching(sb.toString());
-            Query query = TextQuery.queryText(criteria).sortByScore().with(pageable);
-            query.addCriteria(Criteria.where("ownerUserId").is(ownerUserId));
-            long count = mongoTemplate.count(query, ContactBookEntity.class);
-            return new PageImpl<>(mongoTemplate.find(query, ContactBookEntity.class), pageable, count);
+    /**
+     * Duplicate keys of all contact books of the owner, read through a cursor with only the fields they are made of.
+     */
+    public Set<String> findDuplicateKeys(String ownerUserId) {
+        Query query = Query.query(Criteria.where(OWNER_USER_ID).is(ownerUserId))
+                .withHint("owner_id")
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        query.fields().include("phoneDigits", "email");
+        Set<String> keys = new HashSet<>();
+        try (Stream<ContactBookEntity> contactBooks = mongoTemplate.stream(query, ContactBookEntity.class)) {
+            contactBooks.forEach(contactBook -> keys.addAll(ContactBookNormalizer.duplicateKeys(contactBook)));
         }
-        return contactBookRepository.findAllByOwnerUserId(ownerUserId, pageable);
+        return keys;
+    }
+
+    private static Criteria greaterThan(String field, String value) {
+        return value == null ? Criteria.where(field).ne(null) : Criteria.where(field).gt(value);
+    }
+
+    public List<ContactBookDTO> typeahead(String ownerUserId, String query, int limit) {
+        return searchIndex.search(ownerUserId, query, limit);
     }
 
     public ContactBookEntity findById(String id) {
@@ -69,7 +277,187 @@ public class ContactBookService {
         );
     }
 
-    public void delete(ContactBookEntity contactBook) {
-        contactBookRepository.delete(contactBook);
+    public ContactBookEntity findByIdAndOwnerUserId(String id, String ownerUserId) {
+        return contactBookRepository.findByIdAndOwnerUserId(id, ownerUserId).orElseThrow(
+                () -> notFoundOrForbidden(id, "You can read only your own contact books")
+        );
+    }
+
+    /**
+     * The contact book of the owner, served from {@link ContactBookCache} when it was read recently.
+     */
+    public ContactBookDTO findCachedByIdAndOwnerUserId(String id, String ownerUserId) {
+        return contactBookCache.get(id, ownerUserId,
+                key -> ContactBookMapper.toDTO(findByIdAndOwnerUserId(key, ownerUserId)));
+    }
+
+    /**
+     * Version of the contact book of the owner, from the cache or read alone, for answering conditional requests.
+     */
+    public Long findVersion(String id, String ownerUserId) {
+        ContactBookDTO cached = contactBookCache.getIfPresent(id, ownerUserId);
+        if (cached != null) {
+            return cached.version();
+        }
+        Query query = Query.query(Criteria.where("id").is(id).and(OWNER_USER_ID).is(ownerUserId));
+        query.fields().include(VERSION);
+        ContactBookEntity contactBook = mongoTemplate.findOne(query, ContactBookEntity.class);
+        if (contactBook == null) {
+            throw notFoundOrForbidden(id, "You can read only your own contact books");
+        }
+        return contactBook.getVersion();
+    }
+
+    /**
+     * Deletes the contact book of the owner, only if it still has {@code expectedVersion} unless that is {@code null}.
+     */
+    public void deleteByIdAndOwnerUserId(String id, String ownerUserId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            if (contactBookRepository.deleteByIdAndOwnerUserId(id, ownerUserId) == 0) {
+                throw notFoundOrForbidden(id, "You can delete only your own contact books");
+            }
+        } else {
+            Query query = Query.query(Criteria.where("id").is(id).and(OWNER_USER_ID).is(ownerUserId)
+                    .and(VERSION).in(versionValues(expectedVersion)));
+            if (mongoTemplate.remove(query, ContactBookEntity.class).getDeletedCount() == 0) {
+                throw notFoundForbiddenOrChanged(id, ownerUserId, "You can delete only your own contact books");
+            }
+        }
+        contactBookSyncService.recordDeleted(ownerUserId, List.of(id));
+        contactBookCache.invalidate(id);
+        cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, id);
+        searchIndex.remove(id);
+    }
+
+    /**
+     * Deletes all contact books of the owner in batches by id, so that each delete is a short indexed
+     * range and other requests are not blocked behind one long multi-document delete.
+     */
+    public void deleteAllByOwnerUserId(String ownerUserId, JobProgress progress) {
+        String lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where(OWNER_USER_ID).is(ownerUserId);
+            if (lastId != null) {
+                criteria = criteria.and("id").gt(lastId);
+            }
+            Query batchQuery = Query.query(criteria)
+                    .with(Sort.by("id"))
+                    .limit(STREAM_BATCH_SIZE)
+                    .withHint("owner_id");
+            batchQuery.fields().include("id");
+            List<String> ids = mongoTemplate.find(batchQuery, ContactBookEntity.class).stream()
+                    .map(ContactBookEntity::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                return;
+            }
+            long deleted = mongoTemplate.remove(Query.query(Criteria.where("id").in(ids).and(OWNER_USER_ID).is(ownerUserId)),
+                    ContactBookEntity.class).getDeletedCount();
+            contactBookSyncService.recordDeleted(ownerUserId, ids);
+            ids.forEach(contactBookCache::invalidate);
+            cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, ids);
+            ids.forEach(searchIndex::remove);
+            progress.processed(ids.size());
+            progress.add("deleted", deleted);
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * Why a write conditional on the version matched nothing: the document is missing, foreign or of another version.
+     */
+    private ResponseStatusException notFoundForbiddenOrChanged(String id, String ownerUserId, String forbiddenReason) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include(OWNER_USER_ID, VERSION);
+        ContactBookEntity current = mongoTemplate.findOne(query, ContactBookEntity.class);
+        if (current == null) {
+            return new ResourceNotFoundException("Contact book with id %s  not found", id);
+        }
+        if (!ownerUserId.equals(current.getOwnerUserId())) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenReason);
+        }
+        return new PreconditionFailedException("Contact book with id %s was changed, its current ETag is %s", id, ETags.of(current.getVersion()));
+    }
+
+    /**
+     * Documents written before versioning have no version field and match version 0.
+     */
+    static List<Long> versionValues(long version) {
+        return version == 0 ? Arrays.asList(0L, null) : List.of(version);
+    }
+
+    private ResponseStatusException notFoundOrForbidden(String id, String forbiddenReason) {
+        if (contactBookRepository.existsById(id)) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenReason);
+        }
+        return new ResourceNotFoundException("Contact book with id %s  not found", id);
+    }
+
+    /**
+     * Replaces the fields of an existing contact book in one findAndModify. Every field is only
+     * overwritten when the stored owner matches, and the previous document is returned, so a
+     * missing document (404) and a foreign one (403) are told apart without another read.
+     * With an {@code expectedVersion} only that version is replaced.
+     */
+    public ContactBookEntity update(String id, String ownerUserId, ContactBookEntity contactBookEntity, Long expectedVersion) {
+        ContactBookNormalizer.normalize(contactBookEntity);
+        contactBookEntity.setUpdatedAt(Instant.now());
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and(VERSION).in(versionValues(expectedVersion));
+        }
+        AggregationUpdate update = ownerGuardedUpdate(mongoTemplate.getConverter(), contactBookEntity, ownerUserId);
+        ContactBookEntity previous = mongoTemplate.findAndModify(Query.query(criteria), update, ContactBookEntity.class);
+        contactBookCache.invalidate(id);
+        if (previous == null && expectedVersion != null) {
+            throw notFoundForbiddenOrChanged(id, ownerUserId, "You can update only your own contact books");
+        }
+        if (previous == null) {
+            throw new ResourceNotFoundException("Contact book with id %s  not found", id);
+        }
+        if (!ownerUserId.equals(previous.getOwnerUserId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can update only your own contact books");
+        }
+        cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, id);
+        contactBookEntity.setId(previous.getId());
+        contactBookEntity.setOwnerUserId(ownerUserId);
+        contactBookEntity.setVersion(nextVersion(previous.getVersion()));
+        searchIndex.index(contactBookEntity);
+        return contactBookEntity;
+    }
+
+    /**
+     * Sets every field from the entity and increments the version, all only when the stored owner matches.
+     * The version is set as its own stage so that the template does not add an unconditional increment.
+     */
+    static AggregationUpdate ownerGuardedUpdate(MongoConverter converter, ContactBookEntity contactBookEntity, String ownerUserId) {
+        Document fields = ownerGuardedFields(converter, contactBookEntity, ownerUserId);
+        Document ownerMatches = new Document("$eq", List.of("$" + OWNER_USER_ID, ownerUserId));
+        Document incremented = new Document("$add", List.of(new Document("$ifNull", List.of("$" + VERSION, 0L)), 1L));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", fields)))
+                .set(VERSION).toValue((AggregationExpression) context -> new Document("$cond", List.of(ownerMatches, incremented, "$" + VERSION)));
+    }
+
+    static long nextVersion(Long version) {
+        return version == null ? 1 : version + 1;
+    }
+
+    static Document ownerGuardedFields(MongoConverter converter, ContactBookEntity contactBookEntity, String ownerUserId) {
+        Document written = new Document();
+        converter.write(contactBookEntity, written);
+        Document ownerMatches = new Document("$eq", List.of("$" + OWNER_USER_ID, ownerUserId));
+
+        Document fields = new Document();
+        converter.getMappingContext()
+                .getRequiredPersistentEntity(ContactBookEntity.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    String field = property.getFieldName();
+                    if (property.isIdProperty() || property.isVersionProperty() || OWNER_USER_ID.equals(field)) {
+                        return;
+                    }
+                    Object value = written.containsKey(field) ? new Document("$literal", written.get(field)) : "$$REMOVE";
+                    fields.put(field, new Document("$cond", List.of(ownerMatches, value, "$" + field)));
+                });
+        return fields;
     }
 }
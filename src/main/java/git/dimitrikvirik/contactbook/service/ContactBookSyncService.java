@@ -0,0 +1,148 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookSyncDTO;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookTombstoneEntity;
+import git.dimitrikvirik.contactbook.model.param.ContactBookSyncToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Delta sync of the contact books of an owner by {@code updatedAt} and tombstones of deleted contact books.
+ * <p>
+ * Times are taken from the clock of whichever instance wrote, so a write may become visible after a later
+ * one. Only changes older than {@code contactBook.sync.safetyWindow} are sent, which leaves that much time
+ * for writes in flight and clock skew between instances before a position is passed.
+ */
+@Service
+public class ContactBookSyncService {
+
+    private static final String UPDATED_AT = "updatedAt";
+
+    private static final String DELETED_AT = "deletedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Duration safetyWindow;
+
+    private final Duration tombstoneRetention;
+
+    public ContactBookSyncService(MongoTemplate mongoTemplate,
+                                  @Value("${contactBook.sync.safetyWindow:5s}") Duration safetyWindow,
+                                  @Value("${contactBook.sync.tombstoneRetention:30d}") Duration tombstoneRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.safetyWindow = safetyWindow;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    public void recordDeleted(String ownerUserId, Collection<String> ids) {
+        mongoTemplate.insertAll(tombstones(ownerUserId, ids));
+    }
+
+    public List<ContactBookTombstoneEntity> tombstones(String ownerUserId, Collection<String> ids) {
+        Instant now = Instant.now();
+        return ids.stream()
+                .map(id -> ContactBookTombstoneEntity.builder()
+                        .contactBookId(id)
+                        .ownerUserId(ownerUserId)
+                        .deletedAt(now)
+                        .expiresAt(now.plus(tombstoneRetention))
+                        .build())
+                .toList();
+    }
+
+    public ContactBookSyncDTO sync(String ownerUserId, ContactBookSyncToken token, int size) {
+        Instant now = Instant.now();
+        Instant horizon = now.minus(safetyWindow);
+        // tombstones since the token may already have expired
+        boolean reset = token != null && !token.snapshot() && token.deletedAfter().isBefore(now.minus(tombstoneRetention));
+        if (token == null || reset) {
+            token = ContactBookSyncToken.snapshot(horizon, null);
+        }
+        return token.snapshot() ? snapshot(ownerUserId, token, size, reset) : delta(ownerUserId, token, size, horizon);
+    }
+
+    private ContactBookSyncDTO snapshot(String ownerUserId, ContactBookSyncToken token, int size, boolean reset) {
+        Criteria criteria = Criteria.where(ContactBookService.OWNER_USER_ID).is(ownerUserId);
+        if (token.snapshotAfterId() != null) {
+            criteria = criteria.and("id").gt(token.snapshotAfterId());
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by("id"))
+                .limit(size + 1)
+                .withHint("owner_id");
+        List<ContactBookEntity> contactBooks = mongoTemplate.find(query, ContactBookEntity.class);
+        boolean hasMore = contactBooks.size() > size;
+        List<ContactBookEntity> page = hasMore ? contactBooks.subList(0, size) : contactBooks;
+        ContactBookSyncToken next = hasMore
+                ? ContactBookSyncToken.snapshot(token.changedAfter(), page.get(page.size() - 1).getId())
+                : new ContactBookSyncToken(false, null, token.changedAfter(), null, token.deletedAfter(), null);
+        return new ContactBookSyncDTO(page.stream().map(ContactBookMapper::toDTO).toList(), List.of(), next.encode(), hasMore, reset);
+    }
+
+    private ContactBookSyncDTO delta(String ownerUserId, ContactBookSyncToken token, int size, Instant horizon) {
+        Query changedQuery = Query.query(after(ownerUserId, UPDATED_AT, token.changedAfter(), token.changedAfterId(), horizon))
+                .with(Sort.by(UPDATED_AT, "id"))
+                .limit(size + 1)
+                .withHint("owner_updated_at");
+        List<ContactBookEntity> changed = mongoTemplate.find(changedQuery, ContactBookEntity.class);
+        Query deletedQuery = Query.query(after(ownerUserId, DELETED_AT, token.deletedAfter(), token.deletedAfterId(), horizon))
+                .with(Sort.by(DELETED_AT, "id"))
+                .limit(size + 1)
+                .withHint("owner_deleted_at");
+        List<ContactBookTombstoneEntity> deleted = mongoTemplate.find(deletedQuery, ContactBookTombstoneEntity.class);
+
+        boolean moreChanged = changed.size() > size;
+        boolean moreDeleted = deleted.size() > size;
+        List<ContactBookEntity> changedPage = moreChanged ? changed.subList(0, size) : changed;
+        List<ContactBookTombstoneEntity> deletedPage = moreDeleted ? deleted.subList(0, size) : deleted;
+
+        Instant changedAfter = token.changedAfter();
+        String changedAfterId = token.changedAfterId();
+        if (moreChanged) {
+            ContactBookEntity last = changedPage.get(changedPage.size() - 1);
+            changedAfter = last.getUpdatedAt();
+            changedAfterId = last.getId();
+        } else if (horizon.isAfter(changedAfter)) {
+            changedAfter = horizon;
+            changedAfterId = null;
+        }
+        Instant deletedAfter = token.deletedAfter();
+        String deletedAfterId = token.deletedAfterId();
+        if (moreDeleted) {
+            ContactBookTombstoneEntity last = deletedPage.get(deletedPage.size() - 1);
+            deletedAfter = last.getDeletedAt();
+            deletedAfterId = last.getId();
+        } else if (horizon.isAfter(deletedAfter)) {
+            deletedAfter = horizon;
+            deletedAfterId = null;
+        }
+        ContactBookSyncToken next = new ContactBookSyncToken(false, null, changedAfter, changedAfterId, deletedAfter, deletedAfterId);
+        List<ContactBookDTO> changedDTOs = changedPage.stream().map(ContactBookMapper::toDTO).toList();
+        List<String> deletedIds = deletedPage.stream().map(ContactBookTombstoneEntity::getContactBookId).toList();
+        return new ContactBookSyncDTO(changedDTOs, deletedIds, next.encode(), moreChanged || moreDeleted, false);
+    }
+
+    /**
+     * Entries of the owner after the position, up to the horizon.
+     */
+    private static Criteria after(String ownerUserId, String timeField, Instant after, String afterId, Instant horizon) {
+        Criteria position = afterId == null
+                ? Criteria.where(timeField).gt(after).lte(horizon)
+                : new Criteria().orOperator(
+                        Criteria.where(timeField).gt(after).lte(horizon),
+                        Criteria.where(timeField).is(after).and("id").gt(afterId));
+        return new Criteria().andOperator(Criteria.where(ContactBookService.OWNER_USER_ID).is(ownerUserId), position);
+    }
+}
@@ -0,0 +1,59 @@
+package git.dimitrikvirik.contactbook.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a running job. Updated in memory by the job and written to the job document by
+ * {@link JobService} with every heartbeat, so that reporting progress costs no write per record.
+ */
+public class JobProgress {
+
+    private final String jobId;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private volatile String resultFileId;
+
+    JobProgress(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void processed(long records) {
+        processed.addAndGet(records);
+    }
+
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, name -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    long getProcessed() {
+        return processed.get();
+    }
+
+    Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, value) -> snapshot.put(name, value.get()));
+        return snapshot;
+    }
+
+    String getResultFileId() {
+        return resultFileId;
+    }
+
+    void setResultFileId(String resultFileId) {
+        this.resultFileId = resultFileId;
+    }
+}
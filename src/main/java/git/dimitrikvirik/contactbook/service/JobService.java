@@ -0,0 +1,299 @@
+package git.dimitrikvirik.contactbook.service;
+
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import git.dimitrikvirik.contactbook.exception.ResourceNotFoundException;
+import git.dimitrikvirik.contactbook.model.entity.JobEntity;
+import git.dimitrikvirik.contactbook.model.enums.JobStatus;
+import git.dimitrikvirik.contactbook.model.enums.JobType;
+import git.dimitrikvirik.contactbook.repository.JobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs long operations in the background so that they do not hold a request thread.
+ * <p>
+ * Jobs run on a bounded pool; a full queue is answered with 503 and a user with too many unfinished jobs,
+ * counted over all instances, with 429. Every job is a document in {@code jobs}. While a job is queued or
+ * running, a heartbeat writes its progress to the document, and jobs whose heartbeat stopped, e.g. because
+ * the application was restarted, are marked {@link JobStatus#INTERRUPTED}. Finished jobs and their GridFS results are removed after the
+ * retention period.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class JobService {
+
+    private static final List<JobStatus> UNFINISHED = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    private static final int SWEEP_LIMIT = 100;
+
+    private final JobRepository jobRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final GridFSBucket results;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor();
+
+    private final int maxJobsPerUser;
+
+    private final Duration heartbeatInterval;
+
+    private final Duration staleAfter;
+
+    private final Duration retention;
+
+    private final Map<String, JobProgress> localJobs = new ConcurrentHashMap<>();
+
+    public JobService(JobRepository jobRepository,
+                      MongoTemplate mongoTemplate,
+                      MongoDatabaseFactory mongoDatabaseFactory,
+                      @Value("${jobs.threads:4}") int threads,
+                      @Value("${jobs.queueCapacity:100}") int queueCapacity,
+                      @Value("${jobs.maxPerUser:2}") int maxJobsPerUser,
+                      @Value("${jobs.heartbeatInterval:5s}") Duration heartbeatInterval,
+                      @Value("${jobs.staleAfter:1m}") Duration staleAfter,
+                      @Value("${jobs.retention:7d}") Duration retention) {
+        this.jobRepository = jobRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.results = GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), "job_results");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        this.maxJobsPerUser = maxJobsPerUser;
+        this.heartbeatInterval = heartbeatInterval;
+        this.staleAfter = staleAfter;
+        this.retention = retention;
+    }
+
+    @FunctionalInterface
+    public interface Work {
+        void run(JobProgress progress) throws Exception;
+    }
+
+    public record Result(String filename, String contentType, InputStream content) {
+    }
+
+    /**
+     * Inserts the job before counting the unfinished jobs of the user on all instances, so that concurrent
+     * submits can only reject each other and never get past the limit together.
+     */
+    public JobEntity submit(String ownerUserId, JobType type, Work work) {
+        JobEntity job = null;
+        try {
+            Instant now = Instant.now();
+            job = jobRepository.insert(JobEntity.builder()
+                    .ownerUserId(ownerUserId)
+                    .type(type)
+                    .status(JobStatus.QUEUED)
+                    .counters(Map.of())
+                    .createdAt(now)
+                    .heartbeatAt(now)
+                    .build());
+            if (countUnfinished(ownerUserId) > maxJobsPerUser) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        String.format("You can have at most %d unfinished jobs", maxJobsPerUser));
+            }
+            JobEntity queued = job;
+            JobProgress progress = new JobProgress(job.getId());
+            localJobs.put(job.getId(), progress);
+            executor.execute(() -> run(queued, progress, work));
+            return job;
+        } catch (RuntimeException e) {
+            if (job != null) {
+                localJobs.remove(job.getId());
+                jobRepository.deleteById(job.getId());
+            }
+            if (e instanceof RejectedExecutionException) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many jobs are queued, try again later");
+            }
+            throw e;
+        }
+    }
+
+    public JobEntity findByIdAndOwnerUserId(String id, String ownerUserId) {
+        JobEntity job = jobRepository.findById(id).orElseThrow(
+                () -> new ResourceNotFoundException("Job with id %s not found", id)
+        );
+        if (!job.getOwnerUserId().equals(ownerUserId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can read only your own jobs");
+        }
+        JobProgress progress = localJobs.get(id);
+        if (progress != null && job.getStatus() == JobStatus.RUNNING) {
+            job.setProcessed(progress.getProcessed());
+            job.setCounters(progress.getCounters());
+        }
+        return job;
+    }
+
+    /**
+     * Opens the GridFS file that becomes the result of the job once it completes.
+     */
+    public OutputStream createResult(JobProgress progress, String filename, MediaType contentType) {
+        GridFSUploadStream upload = results.openUploadStream(filename, new GridFSUploadOptions()
+                .metadata(new Document("contentType", contentType.toString()).append("jobId", progress.getJobId())));
+        progress.setResultFileId(upload.getObjectId().toHexString());
+        return upload;
+    }
+
+    public Result openResult(String id, String ownerUserId) {
+        JobEntity job = findByIdAndOwnerUserId(id, ownerUserId);
+        if (job.getStatus() != JobStatus.COMPLETED || job.getResultFileId() == null) {
+            throw new ResourceNotFoundException("Job with id %s has no result", id);
+        }
+        ObjectId fileId = new ObjectId(job.getResultFileId());
+        GridFSFile file = results.find(Filters.eq("_id", fileId)).first();
+        if (file == null) {
+            throw new ResourceNotFoundException("Job with id %s has no result", id);
+        }
+        String contentType = file.getMetadata() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE
+                : file.getMetadata().getString("contentType");
+        return new Result(file.getFilename(), contentType, results.openDownloadStream(fileId));
+    }
+
+    private void run(JobEntity job, JobProgress progress, Work work) {
+        Instant startedAt = Instant.now();
+        JobStatus status = JobStatus.COMPLETED;
+        String message = null;
+        try {
+            try {
+                mongoTemplate.updateFirst(byId(job.getId()), Update.update("status", JobStatus.RUNNING)
+                        .set("startedAt", startedAt)
+                        .set("heartbeatAt", startedAt), JobEntity.class);
+                work.run(progress);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = JobStatus.INTERRUPTED;
+            } catch (Exception e) {
+                log.warn("Job {} of type {} failed", job.getId(), job.getType(), e);
+                status = JobStatus.FAILED;
+                message = e.getMessage();
+            }
+
+            if (status != JobStatus.COMPLETED && progress.getResultFileId() != null) {
+                results.delete(new ObjectId(progress.getResultFileId()));
+                progress.setResultFileId(null);
+            }
+            Instant finishedAt = Instant.now();
+            mongoTemplate.updateFirst(byId(job.getId()), Update.update("status", status)
+                    .set("message", message)
+                    .set("processed", progress.getProcessed())
+                    .set("counters", progress.getCounters())
+                    .set("resultFileId", progress.getResultFileId())
+                    .set("finishedAt", finishedAt)
+                    .set("heartbeatAt", finishedAt), JobEntity.class);
+            log.info("Job {} of type {} {} in {} ms, processed {}", job.getId(), job.getType(), status,
+                    Duration.between(startedAt, finishedAt).toMillis(), progress.getProcessed());
+        } catch (RuntimeException e) {
+            // without heartbeats the job is marked as interrupted once it is stale
+            log.warn("Could not record the {} status of job {}", status, job.getId(), e);
+        } finally {
+            localJobs.remove(job.getId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startHeartbeat() {
+        heartbeat.scheduleWithFixedDelay(this::sweep, 0, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void sweep() {
+        try {
+            writeProgress();
+            interruptStaleJobs();
+            removeExpiredJobs();
+        } catch (RuntimeException e) {
+            log.warn("Job heartbeat failed", e);
+        }
+    }
+
+    private void writeProgress() {
+        if (localJobs.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JobEntity.class);
+        localJobs.forEach((id, progress) -> bulk.updateOne(
+                Query.query(Criteria.where("id").is(id).and("status").in(UNFINISHED)),
+                Update.update("heartbeatAt", now)
+                        .set("processed", progress.getProcessed())
+                        .set("counters", progress.getCounters())));
+        bulk.execute();
+    }
+
+    private void interruptStaleJobs() {
+        Instant now = Instant.now();
+        long interrupted = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").in(UNFINISHED).and("heartbeatAt").lt(now.minus(staleAfter))),
+                Update.update("status", JobStatus.INTERRUPTED)
+                        .set("message", "The application stopped while the job was unfinished")
+                        .set("finishedAt", now),
+                JobEntity.class).getModifiedCount();
+        if (interrupted > 0) {
+            log.warn("Marked {} jobs without heartbeat as interrupted", interrupted);
+        }
+    }
+
+    private void removeExpiredJobs() {
+        Query expired = Query.query(Criteria.where("finishedAt").lt(Instant.now().minus(retention))).limit(SWEEP_LIMIT);
+        expired.fields().include("id", "resultFileId");
+        Map<String, String> resultFiles = new HashMap<>();
+        mongoTemplate.find(expired, JobEntity.class).forEach(job -> resultFiles.put(job.getId(), job.getResultFileId()));
+        resultFiles.forEach((id, resultFileId) -> {
+            if (resultFileId != null) {
+                results.delete(new ObjectId(resultFileId));
+            }
+            jobRepository.deleteById(id);
+        });
+    }
+
+    private long countUnfinished(String ownerUserId) {
+        return mongoTemplate.count(Query.query(Criteria.where("ownerUserId").is(ownerUserId).and("status").in(UNFINISHED)), JobEntity.class);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        executor.shutdownNow();
+    }
+}
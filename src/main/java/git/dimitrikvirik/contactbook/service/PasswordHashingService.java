@@ -0,0 +1,141 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt on a small dedicated pool, so a burst of logins and registrations uses at most
+ * {@code passwordHashing.threads} cores and waits in a bounded queue instead of occupying every request
+ * thread with hashing. When the queue is full the request is answered with 503 and Retry-After.
+ */
+@Slf4j
+@Service
+@Profile("!reactive")
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final int strength;
+
+    private final Duration retryAfter;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${passwordHashing.strength:10}") int strength,
+                                  @Value("${passwordHashing.threads:0}") int threads,
+                                  @Value("${passwordHashing.queueCapacity:64}") int queueCapacity,
+                                  @Value("${passwordHashing.retryAfter:1s}") Duration retryAfter) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.retryAfter = retryAfter;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        Gauge.builder("contactbook.password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("contactbook.password.hashing")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("contactbook.password.hashing")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("contactbook.password.hashing.rejected")
+                .description("Requests answered with 503 because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(encodeTimer.wrap((Callable<String>) () -> passwordEncoder.encode(rawPassword))));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(matchesTimer.wrap((Callable<Boolean>) () -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    /**
+     * Whether the hash was made with another work factor than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Hashes the password again in the background, skipped while the queue is full.
+     */
+    public void rehash(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (RuntimeException e) {
+                    log.warn("Could not store rehashed password", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipped rehash, hashing queue is full");
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> hashing) {
+        try {
+            return executor.submit(hashing);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many password checks in progress, try again later", retryAfter);
+        }
+    }
+
+    private static <T> T await(Future<T> hashing) {
+        try {
+            return hashing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hashing.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
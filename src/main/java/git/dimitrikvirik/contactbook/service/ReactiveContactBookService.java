@@ -0,0 +1,205 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.exception.PreconditionFailedException;
+import git.dimitrikvirik.contactbook.exception.ResourceNotFoundException;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.SearchCountMode;
+import git.dimitrikvirik.contactbook.model.param.ContactBookSearchParam;
+import git.dimitrikvirik.contactbook.repository.ReactiveContactBookRepository;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import git.dimitrikvirik.contactbook.util.ETags;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link ContactBookService} for the {@code reactive} profile. Queries, owner checks
+ * and errors are the same, and writes keep the shared {@link ContactBookSearchIndex} up to date.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveContactBookService {
+
+    private final ReactiveContactBookRepository contactBookRepository;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final SearchCountCache searchCountCache;
+
+    private final ContactBookSearchIndex searchIndex;
+
+    private final ContactBookSyncService contactBookSyncService;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    public Mono<ContactBookEntity> save(ContactBookEntity contactBookEntity) {
+        return contactBookRepository.save(contactBookEntity)
+                .doOnNext(searchIndex::index)
+                .flatMap(saved -> publish(saved.getId()).thenReturn(saved));
+    }
+
+    /**
+     * Records the write for the other instances when they poll for it, off the event loop.
+     */
+    private Mono<Void> publish(String id) {
+        return Mono.fromRunnable(() -> cacheInvalidationService.publish(CacheInvalidationService.CONTACT_BOOKS, id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    public Mono<Slice<ContactBookEntity>> findAll(ContactBookSearchParam searchParam, String ownerUserId, Pageable pageable, SearchCountMode countMode) {
+        Query query = ContactBookSearchPlanner.plan(searchParam, ownerUserId).query().with(pageable);
+        return switch (countMode) {
+            case EXACT -> Mono.zip(mongoTemplate.find(query, ContactBookEntity.class).collectList(), count(query))
+                    .map(pageAndTotal -> new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2()));
+            case CACHED -> Mono.zip(mongoTemplate.find(query, ContactBookEntity.class).collectList(), cachedCount(query))
+                    .map(pageAndTotal -> new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2()));
+            case NONE -> findSlice(query, pageable);
+            case FACET -> findFacetPage(query, pageable);
+        };
+    }
+
+    private Mono<Long> count(Query query) {
+        return mongoTemplate.count(ContactBookService.countQuery(query), ContactBookEntity.class);
+    }
+
+    private Mono<Long> cachedCount(Query query) {
+        String queryKey = query.getQueryObject().toJson();
+        Long cached = searchCountCache.getIfPresent(queryKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return count(query).doOnNext(count -> searchCountCache.put(queryKey, count));
+    }
+
+    private Mono<Slice<ContactBookEntity>> findSlice(Query query, Pageable pageable) {
+        return mongoTemplate.find(query.limit(pageable.getPageSize() + 1), ContactBookEntity.class)
+                .collectList()
+                .map(content -> {
+                    boolean hasNext = content.size() > pageable.getPageSize();
+                    return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+                });
+    }
+
+    private Mono<Slice<ContactBookEntity>> findFacetPage(Query query, Pageable pageable) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(ContactBookEntity.class))
+                .flatMap(collection -> Mono.from(collection
+                        .aggregate(ContactBookService.facetPipeline(mongoTemplate.getConverter(), query, pageable))
+                        .first()))
+                .<Slice<ContactBookEntity>>map(result -> ContactBookService.readFacetPage(mongoTemplate.getConverter(), result, pageable))
+                .defaultIfEmpty(new PageImpl<>(List.of(), pageable, 0));
+    }
+
+    public Mono<List<ContactBookDTO>> typeahead(String ownerUserId, String query, int limit) {
+        return Mono.fromSupplier(() -> searchIndex.search(ownerUserId, query, limit));
+    }
+
+    public Mono<ContactBookEntity> findByIdAndOwnerUserId(String id, String ownerUserId) {
+        return contactBookRepository.findByIdAndOwnerUserId(id, ownerUserId)
+                .switchIfEmpty(notFoundOrForbidden(id, "You can read only your own contact books"));
+    }
+
+    /**
+     * Version of the contact book of the owner, read alone, for answering conditional requests.
+     */
+    public Mono<Long> findVersion(String id, String ownerUserId) {
+        Query query = Query.query(Criteria.where("id").is(id).and(ContactBookService.OWNER_USER_ID).is(ownerUserId));
+        query.fields().include(ContactBookService.VERSION);
+        return mongoTemplate.findOne(query, ContactBookEntity.class)
+                .switchIfEmpty(notFoundOrForbidden(id, "You can read only your own contact books"))
+                .map(contactBook -> contactBook.getVersion() == null ? 0L : contactBook.getVersion());
+    }
+
+    /**
+     * Same as {@link ContactBookService#deleteByIdAndOwnerUserId}, only {@code expectedVersion} is deleted unless that is {@code null}.
+     */
+    public Mono<Void> deleteByIdAndOwnerUserId(String id, String ownerUserId, Long expectedVersion) {
+        Mono<Boolean> deleted;
+        if (expectedVersion == null) {
+            deleted = contactBookRepository.deleteByIdAndOwnerUserId(id, ownerUserId)
+                    .flatMap(count -> count == 0
+                            ? notFoundOrForbidden(id, "You can delete only your own contact books")
+                            : Mono.just(true));
+        } else {
+            Query query = Query.query(Criteria.where("id").is(id).and(ContactBookService.OWNER_USER_ID).is(ownerUserId)
+                    .and(ContactBookService.VERSION).in(ContactBookService.versionValues(expectedVersion)));
+            deleted = mongoTemplate.remove(query, ContactBookEntity.class)
+                    .flatMap(result -> result.getDeletedCount() == 0
+                            ? notFoundForbiddenOrChanged(id, ownerUserId, "You can delete only your own contact books")
+                            : Mono.just(true));
+        }
+        return deleted
+                .flatMap(ignored -> mongoTemplate.insertAll(contactBookSyncService.tombstones(ownerUserId, List.of(id)))
+                        .then(Mono.fromRunnable(() -> searchIndex.remove(id)))
+                        .then(publish(id)))
+                .then();
+    }
+
+    private <T> Mono<T> notFoundOrForbidden(String id, String forbiddenReason) {
+        return contactBookRepository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenReason)
+                        : new ResourceNotFoundException("Contact book with id %s  not found", id)));
+    }
+
+    /**
+     * Why a write conditional on the version matched nothing: the document is missing, foreign or of another version.
+     */
+    private <T> Mono<T> notFoundForbiddenOrChanged(String id, String ownerUserId, String forbiddenReason) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include(ContactBookService.OWNER_USER_ID, ContactBookService.VERSION);
+        return mongoTemplate.findOne(query, ContactBookEntity.class)
+                .flatMap(current -> Mono.<T>error(ownerUserId.equals(current.getOwnerUserId())
+                        ? new PreconditionFailedException("Contact book with id %s was changed, its current ETag is %s", id, ETags.of(current.getVersion()))
+                        : new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenReason)))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Contact book with id %s  not found", id)));
+    }
+
+    /**
+     * Same owner-guarded findAndModify as {@link ContactBookService#update}, with an {@code expectedVersion}
+     * only that version is replaced.
+     */
+    public Mono<ContactBookEntity> update(String id, String ownerUserId, ContactBookEntity contactBookEntity, Long expectedVersion) {
+        ContactBookNormalizer.normalize(contactBookEntity);
+        contactBookEntity.setUpdatedAt(Instant.now());
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and(ContactBookService.VERSION).in(ContactBookService.versionValues(expectedVersion));
+        }
+        AggregationUpdate update = ContactBookService.ownerGuardedUpdate(mongoTemplate.getConverter(), contactBookEntity, ownerUserId);
+        return mongoTemplate.findAndModify(Query.query(criteria), update, ContactBookEntity.class)
+                .switchIfEmpty(expectedVersion != null
+                        ? notFoundForbiddenOrChanged(id, ownerUserId, "You can update only your own contact books")
+                        : Mono.error(() -> new ResourceNotFoundException("Contact book with id %s  not found", id)))
+                .<ContactBookEntity>handle((previous, sink) -> {
+                    if (!ownerUserId.equals(previous.getOwnerUserId())) {
+                        sink.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "You can update only your own contact books"));
+                        return;
+                    }
+                    contactBookEntity.setId(previous.getId());
+                    contactBookEntity.setOwnerUserId(ownerUserId);
+                    contactBookEntity.setVersion(ContactBookService.nextVersion(previous.getVersion()));
+                    searchIndex.index(contactBookEntity);
+                    sink.next(contactBookEntity);
+                })
+                .flatMap(updated -> publish(id).thenReturn(updated));
+    }
+}
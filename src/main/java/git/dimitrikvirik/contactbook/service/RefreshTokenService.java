@@ -0,0 +1,123 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.exception.WrongCredentialException;
+import git.dimitrikvirik.contactbook.model.entity.RefreshTokenEntity;
+import git.dimitrikvirik.contactbook.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Opaque, single-use refresh tokens. A token is 256 random bits, only its SHA-256 is stored, so renewing an
+ * access token is one indexed findAndModify instead of a BCrypt verification. Every use rotates the token;
+ * presenting a token that was already used means it leaked, and revokes the whole chain it belongs to.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Duration validity;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               MongoTemplate mongoTemplate,
+                               @Value("${jwt.refreshTokenValidity:30d}") Duration validity) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.validity = validity;
+    }
+
+    /**
+     * @param familyId the chain the refresh token belongs to, carried by the access token issued with it
+     */
+    public record IssuedToken(String userId, String familyId, String refreshToken) {
+    }
+
+    public IssuedToken issue(String userId) {
+        String familyId = new ObjectId().toHexString();
+        return new IssuedToken(userId, familyId, issue(userId, familyId));
+    }
+
+    /**
+     * Marks the token as used and issues its successor.
+     *
+     * @throws WrongCredentialException when the token is unknown, expired or was already used
+     */
+    public IssuedToken rotate(String refreshToken) {
+        String tokenHash = hash(refreshToken);
+        Instant now = Instant.now();
+        RefreshTokenEntity used = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("tokenHash").is(tokenHash).and("usedAt").is(null).and("expiresAt").gt(now)),
+                Update.update("usedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                RefreshTokenEntity.class);
+        if (used == null) {
+            refreshTokenRepository.findByTokenHash(tokenHash)
+                    .filter(token -> token.getUsedAt() != null)
+                    .ifPresent(this::revokeFamily);
+            throw new WrongCredentialException();
+        }
+        return new IssuedToken(used.getUserId(), used.getFamilyId(), issue(used.getUserId(), used.getFamilyId()));
+    }
+
+    public void revokeUserTokens(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Revokes every refresh token of the chain, used and unused.
+     */
+    public void revokeFamily(String familyId) {
+        refreshTokenRepository.deleteByFamilyId(familyId);
+    }
+
+    private String issue(String userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant now = Instant.now();
+        refreshTokenRepository.insert(RefreshTokenEntity.builder()
+                .tokenHash(hash(refreshToken))
+                .userId(userId)
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(validity))
+                .build());
+        return refreshToken;
+    }
+
+    private void revokeFamily(RefreshTokenEntity reused) {
+        long revoked = refreshTokenRepository.deleteByFamilyId(reused.getFamilyId());
+        log.warn("Refresh token of user {} was reused, revoked {} tokens of its chain", reused.getUserId(), revoked);
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package git.dimitrikvirik.contactbook.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class SearchCountCache {
+
+    private final Cache<String, Long> counts;
+
+    public SearchCountCache(@Value("${contactBook.search.countCacheTtl:30s}") Duration ttl,
+                            @Value("${contactBook.search.countCacheSize:10000}") long size) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(size)
+                .build();
+    }
+
+    public long get(String queryKey, Function<String, Long> counter) {
+        return counts.get(queryKey, counter);
+    }
+
+    public Long getIfPresent(String queryKey) {
+        return counts.getIfPresent(queryKey);
+    }
+
+    public void put(String queryKey, long count) {
+        counts.put(queryKey, count);
+    }
+}
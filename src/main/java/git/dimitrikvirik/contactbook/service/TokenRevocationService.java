@@ -0,0 +1,135 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.model.entity.RevokedTokenEntity;
+import git.dimitrikvirik.contactbook.repository.RevokedTokenRepository;
+import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
+import git.dimitrikvirik.contactbook.util.TokenDenylist;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persists revocations in {@code revoked_tokens} and mirrors them into the {@link TokenDenylist} of every instance.
+ * The collection is loaded before the application serves requests and then polled for new entries, so a
+ * revocation on one instance reaches the others within {@code jwt.revocation.pollInterval}. Polling works
+ * without a replica set, which change streams would need.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService implements SmartInitializingSingleton {
+
+    /**
+     * Entries are read again for this long after their revocation time, in case another instance's clock is behind.
+     */
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(5);
+
+    private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenDenylist tokenDenylist;
+
+    private final long tokenValidityMillis;
+
+    private final Duration pollInterval;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor();
+
+    private Instant polledUntil = Instant.EPOCH;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  RefreshTokenService refreshTokenService,
+                                  TokenDenylist tokenDenylist,
+                                  JwtTokenUtil jwtTokenUtil,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.revocation.pollInterval:2s}") Duration pollInterval) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenDenylist = tokenDenylist;
+        this.tokenValidityMillis = jwtTokenUtil.getTokenValidityMillis();
+        this.pollInterval = pollInterval;
+        Gauge.builder("contactbook.token.denylist.size", tokenDenylist, TokenDenylist::size)
+                .description("Revoked tokens and user watermarks held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        poll();
+        log.info("Loaded {} token revocations", tokenDenylist.size());
+        poller.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::removeExpired, CLEANUP_INTERVAL.toMillis(), CLEANUP_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void revokeToken(String tokenId, String userId, Instant expiresAt) {
+        Instant now = Instant.now();
+        revokedTokenRepository.insert(RevokedTokenEntity.builder()
+                .tokenId(tokenId)
+                .userId(userId)
+                .revokedAt(now)
+                .expiresAt(expiresAt)
+                .build());
+        tokenDenylist.revokeToken(tokenId, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * Revokes every access token of the user issued until now, and all of the user's refresh tokens.
+     */
+    public void revokeUserTokens(String userId) {
+        Instant now = Instant.now();
+        revokedTokenRepository.insert(RevokedTokenEntity.builder()
+                .userId(userId)
+                .revokedBefore(now)
+                .revokedAt(now)
+                .expiresAt(now.plusMillis(tokenValidityMillis))
+                .build());
+        tokenDenylist.revokeUserTokens(userId, now.toEpochMilli());
+        refreshTokenService.revokeUserTokens(userId);
+    }
+
+    private synchronized void poll() {
+        Instant since = polledUntil.minus(CLOCK_SKEW);
+        try (Stream<RevokedTokenEntity> revocations = revokedTokenRepository.streamByRevokedAtGreaterThanEqualOrderByRevokedAt(since)) {
+            revocations.forEach(revocation -> {
+                if (revocation.getTokenId() != null) {
+                    tokenDenylist.revokeToken(revocation.getTokenId(), revocation.getExpiresAt().toEpochMilli());
+                } else if (revocation.getRevokedBefore() != null) {
+                    tokenDenylist.revokeUserTokens(revocation.getUserId(), revocation.getRevokedBefore().toEpochMilli());
+                }
+                if (revocation.getRevokedAt().isAfter(polledUntil)) {
+                    polledUntil = revocation.getRevokedAt();
+                }
+            });
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Polling token revocations failed", e);
+        }
+    }
+
+    private void removeExpired() {
+        tokenDenylist.removeExpired(System.currentTimeMillis(), tokenValidityMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
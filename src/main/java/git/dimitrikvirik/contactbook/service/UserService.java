@@ -1,39 +1,144 @@
 package git.dimitrikvirik.contactbook.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import git.dimitrikvirik.contactbook.exception.ResourceNotFoundException;
-import git.dimitrikvirik.contactbook.exception.WrongCredentialException;
+import git.dimitrikvirik.contactbook.exception.UsernameAlreadyExistsException;
 import git.dimitrikvirik.contactbook.model.entity.UserEntity;
 import git.dimitrikvirik.contactbook.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Users are read on every login, refresh and profile call, so they are served from a bounded
+ * read-through cache. The cache holds its own copies and every read returns a new copy, so a caller
+ * changing the entity it got never changes the cache. Writes go through this service, which refreshes or
+ * drops the local copy; other instances drop theirs on the {@link CacheInvalidationEvent}, or at the latest
+ * after {@code user.cacheTtl}.
+ */
 @Service
-@RequiredArgsConstructor
+@Profile("!reactive")
 @Transactional
 public class UserService {
     private final UserRepository userRepository;
 
+    private final MongoTemplate mongoTemplate;
 
-    public boolean existByUsername(String username) {
-        return userRepository.existsByUsername(username);
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final Cache<String, UserEntity> usersById;
+
+    private final Cache<String, String> userIdsByUsername;
+
+    public UserService(UserRepository userRepository,
+                       MongoTemplate mongoTemplate,
+                       CacheInvalidationService cacheInvalidationService,
+                       @Value("${user.cacheTtl:5m}") Duration ttl,
+                       @Value("${user.cacheSize:10000}") long size) {
+        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.usersById = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(size)
+                .build();
+        this.userIdsByUsername = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(size)
+                .build();
     }
 
-    public Optional<UserEntity> findByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username);
+    public Optional<UserEntity> findByUsername(String username) {
+        String id = userIdsByUsername.getIfPresent(username);
+        UserEntity cached = id == null ? null : usersById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        // unknown usernames are not cached, a registration must be visible to the next login
+        Optional<UserEntity> user = userRepository.findByUsername(username);
+        user.ifPresent(this::cache);
+        return user;
     }
 
+    /**
+     * Inserts or updates the user. The unique index on {@code username} rejects a second
+     * registration of the same name, so there is no separate existence check to race with.
+     */
     public UserEntity save(UserEntity userEntity) {
-        return userRepository.save(userEntity);
+        boolean existing = userEntity.getId() != null;
+        try {
+            UserEntity saved = userRepository.save(userEntity);
+            cache(saved);
+            if (existing) {
+                cacheInvalidationService.publish(CacheInvalidationService.USERS, saved.getId());
+            }
+            return copy(saved);
+        } catch (DuplicateKeyException e) {
+            throw new UsernameAlreadyExistsException(userEntity.getUsername());
+        }
+    }
+
+    public Optional<UserEntity> findByIdOptional(String id) {
+        return Optional.ofNullable(usersById.get(id, key -> userRepository.findById(key).orElse(null)))
+                .map(UserService::copy);
+    }
+
+    /**
+     * Replaces the password hash only if it is still {@code currentHash}, so that a concurrent change
+     * of the password or of other fields is not overwritten.
+     *
+     * @return whether the hash was replaced
+     */
+    public boolean replacePasswordHash(String id, String currentHash, String newHash) {
+        boolean replaced = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(id).and("password").is(currentHash)),
+                Update.update("password", newHash),
+                UserEntity.class).getModifiedCount() > 0;
+        if (replaced) {
+            usersById.invalidate(id);
+            cacheInvalidationService.publish(CacheInvalidationService.USERS, id);
+        }
+        return replaced;
     }
 
     public UserEntity findById(String id) {
-        return userRepository.findById(id)
+        return findByIdOptional(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User with id %s not found", id));
     }
 
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationService.USERS.equals(event.collection())) {
+            return;
+        }
+        if (event.invalidatesAll()) {
+            usersById.invalidateAll();
+            userIdsByUsername.invalidateAll();
+        } else {
+            usersById.invalidateAll(event.ids());
+        }
+    }
 
+    private void cache(UserEntity userEntity) {
+        usersById.put(userEntity.getId(), copy(userEntity));
+        userIdsByUsername.put(userEntity.getUsername(), userEntity.getId());
+    }
+
+    private static UserEntity copy(UserEntity userEntity) {
+        return userEntity.toBuilder()
+                .scopes(userEntity.getScopes() == null ? null : List.copyOf(userEntity.getScopes()))
+                .build();
+    }
 }
@@ -0,0 +1,56 @@
+package git.dimitrikvirik.contactbook.util;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the shadow fields of a contact book that are stored only to be searched by index:
+ * lowercase names without diacritics and the digits of the phone number.
+ */
+public class ContactBookNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private ContactBookNormalizer() {
+    }
+
+    public static void normalize(ContactBookEntity contactBook) {
+        contactBook.setFirstnameLower(lower(contactBook.getFirstname()));
+        contactBook.setLastnameLower(lower(contactBook.getLastname()));
+        String digits = PhoneNumberUtil.digits(contactBook.getPhone());
+        contactBook.setPhoneDigits(digits);
+        contactBook.setPhoneDigitsReversed(PhoneNumberUtil.reversed(digits));
+    }
+
+    /**
+     * Keys under which two contact books of the same owner are considered duplicates:
+     * the phone digits and the lowercase email. Expects a {@link #normalize normalized} contact book.
+     */
+    public static List<String> duplicateKeys(ContactBookEntity contactBook) {
+        List<String> keys = new ArrayList<>(2);
+        if (contactBook.getPhoneDigits() != null) {
+            keys.add("tel:" + contactBook.getPhoneDigits());
+        }
+        String email = lower(contactBook.getEmail());
+        if (email != null) {
+            keys.add("email:" + email);
+        }
+        return keys;
+    }
+
+    /**
+     * @return the trimmed value in lower case without diacritics, or {@code null} when it is blank
+     */
+    public static String lower(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,92 @@
+package git.dimitrikvirik.contactbook.util;
+
+import git.dimitrikvirik.contactbook.exception.PreconditionFailedException;
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Entity tags of contact books. A single contact book has the strong tag {@code "<version>"}, a page of them
+ * a weak tag over the ids and versions of its content, which changes whenever one of them changes.
+ */
+public class ETags {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    /**
+     * Documents written before versioning have no version and are treated as version 0.
+     */
+    public static String of(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    public static String of(Slice<ContactBookDTO> page) {
+        return ofPage(page, contactBook -> contactBook.id() + "@" + (contactBook.version() == null ? 0 : contactBook.version()));
+    }
+
+    /**
+     * Tag of a page of selected fields, over all of their values since the version may not be among them.
+     */
+    public static String ofFields(Slice<Map<String, Object>> page) {
+        return ofPage(page, Map::toString);
+    }
+
+    private static <T> String ofPage(Slice<T> page, Function<T, String> key) {
+        StringBuilder content = new StringBuilder()
+                .append(page.getNumber()).append(':')
+                .append(page.getSize()).append(':')
+                .append(page.hasNext());
+        if (page instanceof Page<?> countedPage) {
+            content.append(':').append(countedPage.getTotalElements());
+        }
+        for (T element : page) {
+            content.append(',').append(key.apply(element));
+        }
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the tag, comparing weakly.
+     */
+    public static boolean noneMatchHits(String ifNoneMatch, String eTag) {
+        String opaqueTag = stripWeak(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version an {@code If-Match} header requires, or {@code null} when any version will do.
+     * Weak and unknown tags can never match strongly, so they fail the precondition right away.
+     */
+    public static Long requiredVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            try {
+                return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+        throw new PreconditionFailedException("If-Match %s does not match the contact book", eTag);
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+    }
+}
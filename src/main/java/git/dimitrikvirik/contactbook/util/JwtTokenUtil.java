@@ -1,55 +1,164 @@
 package git.dimitrikvirik.contactbook.util;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import git.dimitrikvirik.contactbook.exception.TokenExpiredException;
+import git.dimitrikvirik.contactbook.exception.TokenRevokedException;
+import git.dimitrikvirik.contactbook.model.security.ScopeAuthorities;
+import git.dimitrikvirik.contactbook.model.security.UserPrincipal;
+import git.dimitrikvirik.contactbook.model.security.VerifiedToken;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenUtil {
 
+    public static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Issue time in milliseconds. {@code iat} has a resolution of seconds, too coarse to tell a token issued
+     * right after a logout from everywhere from the ones it revoked.
+     */
+    public static final String ISSUED_AT_MILLIS = "iatMillis";
+
+    /**
+     * Chain of refresh tokens issued together with the access token, revoked when the access token logs out.
+     */
+    public static final String REFRESH_TOKEN_FAMILY = "refreshFamily";
+
+    private final Key key;
+
+    private final JwtParser jwtParser;
+
+    private final long tokenValidityMillis;
+
+    /**
+     * Tokens whose signature was already verified, keyed by the Authorization header value
+     * ({@code "Bearer <token>"}) so that a hit does not need to copy the token out of the header.
+     * Every entry expires together with its token, so expiry is still enforced by the parser.
+     */
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final TokenDenylist tokenDenylist;
+
+    public JwtTokenUtil(@Value("${jwt.secret}") String secret,
+                        @Value("${jwt.tokenValidity}") long tokenValidity,
+                        @Value("${jwt.cacheSize:10000}") long cacheSize,
+                        TokenDenylist tokenDenylist) {
+        this.tokenDenylist = tokenDenylist;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.tokenValidityMillis = TimeUnit.SECONDS.toMillis(tokenValidity);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public Claims getClaims(String token) {
+        return verify(BEARER_PREFIX + token).claims();
+    }
 
-    @Value("${jwt.tokenValidity}")
-    private String tokenValidity;
+    /**
+     * Authentication of a valid token. Revocation is checked on every call, also for tokens already in the cache.
+     */
+    public PreAuthenticatedAuthenticationToken getAuthentication(String authorizationHeader) {
+        VerifiedToken verifiedToken = verify(authorizationHeader);
+        Claims claims = verifiedToken.claims();
+        if (tokenDenylist.isRevoked(claims.getId(), claims.getSubject(), verifiedToken.issuedAtMillis())) {
+            throw new TokenRevokedException();
+        }
+        return verifiedToken.authentication();
+    }
 
+    public long getTokenValidityMillis() {
+        return tokenValidityMillis;
+    }
 
+    public String doGenerateToken(Claims claims, String subject) {
+        long now = System.currentTimeMillis();
 
-    public Claims getClaims(String token) {
+        claims.put(ISSUED_AT_MILLIS, now);
+        return Jwts.builder().setClaims(claims).setId(UUID.randomUUID().toString()).setSubject(subject).setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + tokenValidityMillis))
+                .signWith(key, SignatureAlgorithm.HS256).compact();
+    }
 
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        Key key = Keys.hmacShaKeyFor(keyBytes);
-        try {
-            Jws<Claims> claimsJws = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+    private VerifiedToken verify(String authorizationHeader) {
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(authorizationHeader);
+        if (verifiedToken == null) {
+            Claims claims = parseClaims(authorizationHeader.substring(BEARER_PREFIX.length()));
+            verifiedToken = new VerifiedToken(claims, toAuthentication(claims), issuedAtMillis(claims));
+            verifiedTokens.put(authorizationHeader, verifiedToken);
+        }
+        return verifiedToken;
+    }
 
-            return claimsJws.getBody();
+    private Claims parseClaims(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException exception) {
             throw new TokenExpiredException();
         }
     }
 
-    public String doGenerateToken(Claims claims, String subject) {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        Key key = Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Tokens issued before {@link #ISSUED_AT_MILLIS} existed count as issued at the start of their {@code iat} second.
+     */
+    private static long issuedAtMillis(Claims claims) {
+        Number issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Number.class);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis.longValue();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null ? 0 : issuedAt.getTime();
+    }
 
-        return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(tokenValidity))))
-                .signWith(key, SignatureAlgorithm.HS256).compact();
+    @SuppressWarnings("unchecked")
+    private static PreAuthenticatedAuthenticationToken toAuthentication(Claims claims) {
+        return new PreAuthenticatedAuthenticationToken(
+                new UserPrincipal(claims.getSubject(), claims.get("username", String.class)),
+                null,
+                ScopeAuthorities.of(claims.get("scopes", List.class)));
     }
 
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
 
+        @Override
+        public long expireAfterCreate(String authorizationHeader, VerifiedToken verifiedToken, long currentTime) {
+            Date expiration = verifiedToken.claims().getExpiration();
+            if (expiration == null) {
+                return Long.MAX_VALUE;
+            }
+            long millisLeft = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String authorizationHeader, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String authorizationHeader, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package git.dimitrikvirik.contactbook.util;
+
+/**
+ * Canonical digits-only form of free-form phone numbers, so that "+995 555 12 34 56"
+ * and "995555123456" are stored and looked up the same way.
+ */
+public class PhoneNumberUtil {
+
+    private PhoneNumberUtil() {
+    }
+
+    /**
+     * @return the digits of the phone number, or {@code null} when it has none
+     */
+    public static String digits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.isEmpty() ? null : digits.toString();
+    }
+
+    public static String reversed(String digits) {
+        return digits == null ? null : new StringBuilder(digits).reverse().toString();
+    }
+}
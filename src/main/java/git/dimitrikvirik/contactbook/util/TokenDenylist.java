@@ -0,0 +1,143 @@
+package git.dimitrikvirik.contactbook.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory mirror of the revoked tokens: a bloom filter over revoked token ids in front of the exact set,
+ * plus per-user watermarks revoking every token issued up to a point in time. A token that was not revoked
+ * is almost always rejected by the filter alone, which hashes the id in place and reads a few bits, so the
+ * check does not allocate.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Map<String, Long> revokedTokenIds = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> revokedBeforeByUser = new ConcurrentHashMap<>();
+
+    private final int expectedTokens;
+
+    private volatile BloomFilter filter;
+
+    public TokenDenylist(@Value("${jwt.revocation.expectedTokens:100000}") int expectedTokens) {
+        this.expectedTokens = expectedTokens;
+        this.filter = new BloomFilter(expectedTokens);
+    }
+
+    /**
+     * @param issuedAtMillis issue time of the token, tokens issued strictly before a watermark count as revoked
+     */
+    public boolean isRevoked(String tokenId, String userId, long issuedAtMillis) {
+        if (!revokedBeforeByUser.isEmpty() && userId != null) {
+            Long revokedBefore = revokedBeforeByUser.get(userId);
+            if (revokedBefore != null && issuedAtMillis < revokedBefore) {
+                return true;
+            }
+        }
+        return tokenId != null && filter.mightContain(tokenId) && revokedTokenIds.containsKey(tokenId);
+    }
+
+    public void revokeToken(String tokenId, long expiresAtMillis) {
+        revokedTokenIds.put(tokenId, expiresAtMillis);
+        BloomFilter current = filter;
+        current.add(tokenId);
+        if (revokedTokenIds.size() > current.capacity) {
+            rebuild(System.currentTimeMillis());
+        }
+    }
+
+    public void revokeUserTokens(String userId, long revokedBeforeMillis) {
+        revokedBeforeByUser.merge(userId, revokedBeforeMillis, Math::max);
+    }
+
+    /**
+     * Drops ids of tokens that have expired by now, and watermarks older than any token that can still be valid,
+     * and rebuilds the filter from the remaining ids.
+     */
+    public synchronized void removeExpired(long nowMillis, long tokenValidityMillis) {
+        revokedBeforeByUser.values().removeIf(revokedBefore -> revokedBefore + tokenValidityMillis < nowMillis);
+        rebuild(nowMillis);
+    }
+
+    public int size() {
+        return revokedTokenIds.size() + revokedBeforeByUser.size();
+    }
+
+    private synchronized void rebuild(long nowMillis) {
+        revokedTokenIds.values().removeIf(expiresAt -> expiresAt < nowMillis);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revokedTokenIds.size() * 2));
+        revokedTokenIds.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+        // ids revoked while the filter was rebuilt
+        revokedTokenIds.keySet().forEach(rebuilt::add);
+    }
+
+    private static final class BloomFilter {
+
+        private final int capacity;
+
+        private final AtomicLongArray bits;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        BloomFilter(int capacity) {
+            this.capacity = capacity;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+            this.bitCount = bits.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void add(String value) {
+            long hash1 = hash(value, 0xcbf29ce484222325L);
+            long hash2 = hash(value, 0x84222325cbf29ce4L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash1 = hash(value, 0xcbf29ce484222325L);
+            long hash2 = hash(value, 0x84222325cbf29ce4L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a over the chars, finished with the murmur3 mix so that nearby values spread over all bits.
+         */
+        private static long hash(String value, long seed) {
+            long hash = seed;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package git.dimitrikvirik.contactbook.benchmark;
+
+import git.dimitrikvirik.contactbook.config.AuthenticationTokenFilter;
+import git.dimitrikvirik.contactbook.model.security.UserPrincipal;
+import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
+import git.dimitrikvirik.contactbook.util.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation rate of the authentication filter hot path (token already verified and cached).
+ * {@code legacyFilter} rebuilds authorities, principal and authentication per request as the filter used to;
+ * {@code cachedAuthentication} is the current {@link AuthenticationTokenFilter}.
+ * Compare {@code gc.alloc.rate.norm} reported by the GC profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthenticationTokenFilterBenchmark {
+
+    private static final String SECRET = "GS1JfaQxVlZROFO82tOIoRmg7p1il57R0ChmGp8sycuVpmABRawFDNgad0kwAQ";
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private LegacyFilter legacyFilter;
+
+    private CurrentFilter currentFilter;
+
+    @Setup
+    public void setup() throws ServletException, IOException {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(SECRET, 86400, 10_000, new TokenDenylist(100_000));
+        Claims claims = Jwts.claims();
+        claims.put("username", "test");
+        claims.put("scopes", List.of("CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"));
+        String token = jwtTokenUtil.doGenerateToken(claims, "id");
+
+        request = new MockHttpServletRequest("GET", "/api/contact-book");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        legacyFilter = new LegacyFilter(Map.of(token, jwtTokenUtil.getClaims(token)));
+        currentFilter = new CurrentFilter(jwtTokenUtil);
+        // warm the verified-token cache so both variants measure only the per-request work
+        currentFilter.filter(request, response);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object legacyFilter() throws ServletException, IOException {
+        legacyFilter.filter(request, response);
+        return clearContext();
+    }
+
+    @Benchmark
+    public Object cachedAuthentication() throws ServletException, IOException {
+        currentFilter.filter(request, response);
+        return clearContext();
+    }
+
+    private static Object clearContext() {
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static class CurrentFilter extends AuthenticationTokenFilter {
+
+        CurrentFilter(JwtTokenUtil jwtTokenUtil) {
+            super(jwtTokenUtil);
+        }
+
+        void filter(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            doFilterInternal(request, response, NO_OP_CHAIN);
+        }
+    }
+
+    /**
+     * The filter as it was before, reading claims from a token-keyed cache hit like the previous {@link JwtTokenUtil}.
+     */
+    private static class LegacyFilter {
+
+        private final Map<String, Claims> verifiedClaims;
+
+        LegacyFilter(Map<String, Claims> verifiedClaims) {
+            this.verifiedClaims = verifiedClaims;
+        }
+
+        void filter(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            String header = request.getHeader("Authorization");
+
+            if (header != null && header.startsWith("Bearer ")) {
+                String token = header.substring(7);
+                Claims claims = verifiedClaims.get(token);
+                List<GrantedAuthority> scopes = getGrantedAuthorities(claims);
+                String username = claims.get("username", String.class);
+                PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(
+                        new UserPrincipal(claims.getSubject(), username),
+                        null,
+                        scopes);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+            NO_OP_CHAIN.doFilter(request, response);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<GrantedAuthority> getGrantedAuthorities(Claims claims) {
+            return ((List<String>) claims.get("scopes", ArrayList.class)).stream().map(
+                    authority -> (GrantedAuthority) () -> authority
+            ).toList();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthenticationTokenFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
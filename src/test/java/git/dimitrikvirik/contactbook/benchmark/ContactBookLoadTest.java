@@ -0,0 +1,86 @@
+package git.dimitrikvirik.contactbook.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test against a running instance: every connection sends its next listing request as soon
+ * as the previous one is answered. Run it once against an instance started with {@code VIRTUAL_THREADS=false}
+ * and once with {@code VIRTUAL_THREADS=true}, at 1000 and 5000 connections.
+ * <p>
+ * Arguments: base url, bearer token, connections, seconds, e.g.
+ * {@code http://localhost:8080 eyJhbGciOi... 1000 60}.
+ */
+public class ContactBookLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        String token = args[1];
+        int connections = Integer.parseInt(args[2]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[3]));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/contact-book?page=0&size=20&countMode=NONE"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                clients.execute(() -> {
+                    long[] connectionLatencies = new long[1024];
+                    int size = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                succeeded.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        if (size == connectionLatencies.length) {
+                            connectionLatencies = Arrays.copyOf(connectionLatencies, size * 2);
+                        }
+                        connectionLatencies[size++] = System.nanoTime() - start;
+                    }
+                    latencies.add(Arrays.copyOf(connectionLatencies, size));
+                });
+            }
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("connections=%d seconds=%d requests/s=%.0f ok=%d failed=%d p50=%dms p99=%dms max=%dms%n",
+                connections, duration.toSeconds(), succeeded.get() / (double) duration.toSeconds(), succeeded.get(), failed.get(),
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(index, 0)]).toMillis();
+    }
+}
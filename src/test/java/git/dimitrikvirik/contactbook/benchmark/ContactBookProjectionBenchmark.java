@@ -0,0 +1,134 @@
+package git.dimitrikvirik.contactbook.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookField;
+import git.dimitrikvirik.contactbook.util.ContactBookNormalizer;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application side of a list page read as whole documents versus with {@code fields=firstname,lastname,phone}:
+ * decoding the BSON the driver received, mapping it to the entity, copying it into the response and writing
+ * the JSON body. Disk and network are not part of it; the BSON and JSON sizes printed at setup show how much
+ * less of both a projected page needs. Add {@code -prof gc} to compare allocation per page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactBookProjectionBenchmark {
+
+    private static final Set<ContactBookField> FIELDS = EnumSet.of(ContactBookField.ID, ContactBookField.FIRSTNAME,
+            ContactBookField.LASTNAME, ContactBookField.PHONE);
+
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    @Param({"20", "200", "2000"})
+    private int pageSize;
+
+    private MappingMongoConverter converter;
+
+    private ObjectMapper objectMapper;
+
+    private List<RawBsonDocument> fullDocuments;
+
+    private List<RawBsonDocument> projectedDocuments;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonProcessingException {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        objectMapper = new ObjectMapper();
+
+        fullDocuments = new ArrayList<>(pageSize);
+        projectedDocuments = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            ContactBookEntity contactBook = ContactBookEntity.builder()
+                    .id(new ObjectId().toHexString())
+                    .ownerUserId("64b7f0c2e4b0a1a2b3c4d5e6")
+                    .firstname("Firstname" + i)
+                    .lastname("Lastname" + i)
+                    .email("firstname" + i + ".lastname" + i + "@example.com")
+                    .phone("+995 555 " + (100000 + i))
+                    .address(i + " Rustaveli Avenue, Apartment " + (i % 100) + ", Tbilisi 0108, Georgia")
+                    .version(3L)
+                    .updatedAt(Instant.now())
+                    .build();
+            ContactBookNormalizer.normalize(contactBook);
+            Document full = new Document();
+            converter.write(contactBook, full);
+            fullDocuments.add(new RawBsonDocument(full, CODEC));
+            Document projected = new Document("_id", full.get("_id"));
+            FIELDS.stream().filter(field -> field != ContactBookField.ID)
+                    .forEach(field -> projected.append(field.getProperty(), full.get(field.getProperty())));
+            projectedDocuments.add(new RawBsonDocument(projected, CODEC));
+        }
+        System.out.printf("%n%d contact books: BSON %d vs %d bytes, JSON %d vs %d bytes%n", pageSize,
+                bsonBytes(fullDocuments), bsonBytes(projectedDocuments), wholeDocuments().length, projectedFields().length);
+    }
+
+    private static long bsonBytes(List<RawBsonDocument> documents) {
+        return documents.stream().mapToLong(document -> document.getByteBuffer().remaining()).sum();
+    }
+
+    @Benchmark
+    public byte[] wholeDocuments() throws JsonProcessingException {
+        List<Object> page = new ArrayList<>(fullDocuments.size());
+        for (RawBsonDocument document : fullDocuments) {
+            page.add(ContactBookMapper.toDTO(converter.read(ContactBookEntity.class, document.decode(CODEC))));
+        }
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] projectedFields() throws JsonProcessingException {
+        List<Map<String, Object>> page = new ArrayList<>(projectedDocuments.size());
+        for (RawBsonDocument document : projectedDocuments) {
+            page.add(ContactBookMapper.toFields(converter.read(ContactBookEntity.class, document.decode(CODEC)), FIELDS));
+        }
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ContactBookProjectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package git.dimitrikvirik.contactbook.benchmark;
+
+import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
+import git.dimitrikvirik.contactbook.util.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old per-call token verification (decode secret, build key and parser on every request)
+ * with the shared parser and the verified-token cache of {@link JwtTokenUtil}.
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtTokenUtilBenchmark {
+
+    private static final String SECRET = "GS1JfaQxVlZROFO82tOIoRmg7p1il57R0ChmGp8sycuVpmABRawFDNgad0kwAQ";
+
+    private static final int CLIENTS = 256;
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private JwtParser sharedParser;
+
+    private String[] tokens;
+
+    @Setup
+    public void setup() {
+        jwtTokenUtil = new JwtTokenUtil(SECRET, 86400, 10_000, new TokenDenylist(100_000));
+        sharedParser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+        tokens = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            Claims claims = Jwts.claims();
+            claims.put("username", "user" + i);
+            claims.put("scopes", List.of("CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"));
+            tokens[i] = jwtTokenUtil.doGenerateToken(claims, "id" + i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int next;
+
+        String token(JwtTokenUtilBenchmark benchmark) {
+            return benchmark.tokens[next++ & (CLIENTS - 1)];
+        }
+    }
+
+    @Benchmark
+    public Claims perCallParser(Client client) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(client.token(this)).getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser(Client client) {
+        return sharedParser.parseClaimsJws(client.token(this)).getBody();
+    }
+
+    @Benchmark
+    public Claims cachedClaims(Client client) {
+        return jwtTokenUtil.getClaims(client.token(this));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtTokenUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
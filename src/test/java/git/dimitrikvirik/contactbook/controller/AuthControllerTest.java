@@ -1,6 +1,7 @@
 package git.dimitrikvirik.contactbook.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import git.dimitrikvirik.contactbook.model.param.RefreshTokenParam;
 import git.dimitrikvirik.contactbook.model.param.UserRegParam;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,6 +19,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -230,6 +232,115 @@ class AuthControllerTest {
 
 
 
+    @Test
+    @DisplayName("Refresh rotates the token and revokes the chain on reuse")
+    @DirtiesContext
+    void refresh_when_successful() throws Exception {
+        register_when_successful();
+        String login = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/login")
+                        .content(objectMapper.writeValueAsBytes(UserRegParam.builder().username("test").password("testtest").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String refreshToken = objectMapper.readTree(login).get("refreshToken").asText();
+
+        String refreshed = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/refresh")
+                        .content(objectMapper.writeValueAsBytes(new RefreshTokenParam(refreshToken)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.token").exists())
+                .andReturn().getResponse().getContentAsString();
+        String rotatedToken = objectMapper.readTree(refreshed).get("refreshToken").asText();
+        assertNotEquals(refreshToken, rotatedToken);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/refresh")
+                        .content(objectMapper.writeValueAsBytes(new RefreshTokenParam(refreshToken)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/refresh")
+                        .content(objectMapper.writeValueAsBytes(new RefreshTokenParam(rotatedToken)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Logout revokes the token and its refresh token")
+    @DirtiesContext
+    void logout_when_successful() throws Exception {
+        register_when_successful();
+        String login = login();
+        String token = objectMapper.readTree(login).get("token").asText();
+        String refreshToken = objectMapper.readTree(login).get("refreshToken").asText();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/user")
+                        .header("Authorization", "Bearer " + token)
+                )
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/user/logout")
+                        .header("Authorization", "Bearer " + token)
+                )
+                .andExpect(status().isNoContent());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/user")
+                        .header("Authorization", "Bearer " + token)
+                )
+                .andDo(print())
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/refresh")
+                        .content(objectMapper.writeValueAsBytes(new RefreshTokenParam(refreshToken)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Logout everywhere keeps a token issued right after it")
+    @DirtiesContext
+    void logoutEverywhere_then_login() throws Exception {
+        String token = loginAndGetToken();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/user/logout-all")
+                        .header("Authorization", "Bearer " + token)
+                )
+                .andExpect(status().isNoContent());
+        String newToken = objectMapper.readTree(login()).get("token").asText();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/user")
+                        .header("Authorization", "Bearer " + token)
+                )
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/user")
+                        .header("Authorization", "Bearer " + newToken)
+                )
+                .andDo(print())
+                .andExpect(status().isOk());
+    }
+
+    private String login() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/auth/login")
+                        .content(objectMapper.writeValueAsBytes(UserRegParam.builder().username("test").password("testtest").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
     private String loginAndGetToken() throws Exception {
         register_when_successful();
 
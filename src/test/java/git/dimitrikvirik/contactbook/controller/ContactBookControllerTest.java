@@ -1,5 +1,6 @@
 package git.dimitrikvirik.contactbook.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import git.dimitrikvirik.contactbook.mapper.ContactBookMapper;
 import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
@@ -14,16 +15,23 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureDataMongo
@@ -93,6 +101,20 @@ class ContactBookControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Add contact book when a field is too long")
+    @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_WRITE"})
+    void addContactBook_when_field_too_long() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/contact-book")
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("t".repeat(101)).lastname("test").phone("test").email("test").address("test").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Get contact book by id")
     @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
@@ -206,6 +228,82 @@ class ContactBookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.address").value("test2"));
     }
 
+    @Test
+    @DisplayName("Update contact book keeps id and does not insert new document")
+    @WithMockUser(username = "updateInPlace", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void updateContactBook_when_success_updates_in_place() throws Exception {
+        ContactBookEntity contactBookEntity = getContactBookEntity("updateInPlace");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/contact-book/" + contactBookEntity.getId())
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("test2").lastname("test2").phone("test2").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(contactBookEntity.getId()));
+
+        ContactBookEntity updated = mongoOperations.findById(contactBookEntity.getId(), ContactBookEntity.class);
+        assertEquals("test2", updated.getFirstname());
+        assertNull(updated.getEmail());
+        assertEquals(1, mongoOperations.count(Query.query(Criteria.where("ownerUserId").is("updateInPlace")), ContactBookEntity.class));
+    }
+
+    @Test
+    @DisplayName("Get contact book by id after update is not served stale from the cache")
+    @WithMockUser(username = "cachedRead", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void getContactBookById_after_update() throws Exception {
+        ContactBookEntity contactBookEntity = getContactBookEntity("cachedRead");
+        String id = contactBookEntity.getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/" + id))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.firstname").value(contactBookEntity.getFirstname()));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/contact-book/" + id)
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("cached2").lastname("cached2").phone("cached2").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/" + id))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.firstname").value("cached2"));
+    }
+
+    @Test
+    @DisplayName("Get contact book by id when not modified and update with stale ETag")
+    @WithMockUser(username = "conditional", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void getContactBookById_when_not_modified() throws Exception {
+        ContactBookEntity contactBookEntity = getContactBookEntity("conditional");
+        String id = contactBookEntity.getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/contact-book/" + id)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("conditional2").lastname("conditional2").phone("conditional2").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/" + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(1));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .delete("/api/contact-book/" + id)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("Update contact book when not found")
     @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
@@ -220,6 +318,23 @@ class ContactBookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Update contact book when a field is too long")
+    @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void updateContactBook_when_field_too_long() throws Exception {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/contact-book/" + contactBookEntity.getId())
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("test2").lastname("test2").phone("test2").email("test2").address("a".repeat(1001)).build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        assertEquals("test", mongoOperations.findById(contactBookEntity.getId(), ContactBookEntity.class).getAddress());
+    }
+
     @Test
     @DisplayName("Update contact book when not mine")
     @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
@@ -317,6 +432,354 @@ class ContactBookControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Get all contact books with search param counted by facet")
+    @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getAllContactBooks_when_success_with_facet_count() throws Exception {
+        getContactBookEntity("test");
+        getContactBookEntity("test");
+        getContactBookEntity("test2");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book?firstname=test&countMode=FACET&size=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1));
+    }
+
+    @Test
+    @DisplayName("Get all contact books with search param without count")
+    @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getAllContactBooks_when_success_without_count() throws Exception {
+        getContactBookEntity("test");
+        getContactBookEntity("test");
+        getContactBookEntity("test2");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book?firstname=test&countMode=NONE&size=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.last").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1));
+    }
+
+    @Test
+    @DisplayName("Get all contact books with selected fields")
+    @WithMockUser(username = "test", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getAllContactBooks_when_success_with_fields() throws Exception {
+        ContactBookEntity contactBook = getContactBookEntity("test");
+        getContactBookEntity("test2");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book?fields=firstname,phone")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].id").value(contactBook.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].firstname").value("test"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].phone").value("test"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].lastname").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].email").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Get contact books by cursor pages through all of them")
+    @WithMockUser(username = "cursorUser", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void getContactBooksByCursor_when_success() throws Exception {
+        getContactBookEntity("cursorUser");
+        getContactBookEntity("cursorUser");
+        getContactBookEntity("cursorUser");
+
+        String firstPage = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/cursor?size=2&order=NAME")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/cursor")
+                        .param("size", "2")
+                        .param("cursor", objectMapper.readTree(firstPage).get("next").asText())
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Get contact books by cursor when cursor is invalid")
+    @WithMockUser(username = "cursorUser", authorities = {"CONTACT_BOOK_READ"})
+    void getContactBooksByCursor_when_cursor_invalid() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/cursor?cursor=not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Import contact books from NDJSON")
+    @WithMockUser(username = "importUser", authorities = {"CONTACT_BOOK_WRITE"})
+    void importContactBooks_when_success() throws Exception {
+        String body = objectMapper.writeValueAsString(ContactBookParam.builder().firstname("first").phone("555").build()) + "\n"
+                + objectMapper.writeValueAsString(ContactBookParam.builder().lastname("no firstname").build()) + "\n"
+                + objectMapper.writeValueAsString(ContactBookParam.builder().firstname("third").build()) + "\n";
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/contact-book/import")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String[] results = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(3, results.length);
+        assertEquals("INVALID", objectMapper.readTree(results[0]).get("status").asText());
+        assertEquals(2, objectMapper.readTree(results[0]).get("row").asInt());
+        assertEquals("CREATED", objectMapper.readTree(results[1]).get("status").asText());
+        assertEquals(1, objectMapper.readTree(results[1]).get("row").asInt());
+        assertEquals(2, mongoOperations.count(Query.query(Criteria.where("ownerUserId").is("importUser")), ContactBookEntity.class));
+    }
+
+    @Test
+    @DisplayName("Import vCard file skips duplicates")
+    @WithMockUser(username = "vcardUser", authorities = {"CONTACT_BOOK_WRITE"})
+    void importContactBookFile_when_success() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("vcardUser").firstname("known").email("Known@Example.com").build());
+        String vcards = "BEGIN:VCARD\r\nVERSION:3.0\r\nN:Kvirikashvili;Dimitri;;;\r\nTEL;TYPE=CELL:+995 555 12 34 56\r\nEND:VCARD\r\n"
+                + "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Same Phone\r\nTEL:995555123456\r\nEND:VCARD\r\n"
+                + "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Known\r\nEMAIL:known@example.com\r\nEND:VCARD\r\n";
+
+        String job = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/contact-book/import/file?format=VCARD")
+                        .content(vcards)
+                        .contentType("text/vcard")
+                )
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readTree(job).get("id").asText();
+
+        JsonNode finished = awaitJob(id);
+        assertEquals("COMPLETED", finished.get("status").asText());
+        assertEquals(3, finished.get("processed").asInt());
+        assertEquals(1, finished.get("counters").get("created").asInt());
+        assertEquals(2, finished.get("counters").get("duplicates").asInt());
+    }
+
+    @Test
+    @DisplayName("Delete all contact books in a job")
+    @WithMockUser(username = "deleteAllUser", authorities = {"CONTACT_BOOK_WRITE"})
+    void deleteAllContactBooks_when_success() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("deleteAllUser").firstname("first").build());
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("deleteAllUser").firstname("second").build());
+        getContactBookEntity("deleteAllOtherUser");
+
+        String job = mockMvc.perform(MockMvcRequestBuilders.post("/api/contact-book/delete-all/jobs"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode finished = awaitJob(objectMapper.readTree(job).get("id").asText());
+        assertEquals("COMPLETED", finished.get("status").asText());
+        assertEquals(2, finished.get("counters").get("deleted").asInt());
+        assertEquals(0, mongoOperations.count(Query.query(Criteria.where("ownerUserId").is("deleteAllUser")), ContactBookEntity.class));
+        assertEquals(1, mongoOperations.count(Query.query(Criteria.where("ownerUserId").is("deleteAllOtherUser")), ContactBookEntity.class));
+    }
+
+    @Test
+    @DisplayName("Delete on the contact book collection deletes nothing")
+    @WithMockUser(username = "deleteAllUser", authorities = {"CONTACT_BOOK_WRITE"})
+    void deleteContactBooks_without_id() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("deleteAllUser").firstname("first").build());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/contact-book"))
+                .andDo(print())
+                .andExpect(status().isMethodNotAllowed());
+        assertEquals(1, mongoOperations.count(Query.query(Criteria.where("ownerUserId").is("deleteAllUser")), ContactBookEntity.class));
+    }
+
+    private JsonNode awaitJob(String id) throws Exception {
+        JsonNode job = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            job = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.get("/api/jobs/" + id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String status = job.get("status").asText();
+            if (!status.equals("QUEUED") && !status.equals("RUNNING")) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("Export contact books as CSV")
+    @WithMockUser(username = "exportUser", authorities = {"CONTACT_BOOK_READ"})
+    void exportContactBooks_when_success() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("exportUser").firstname("first").address("Main Street, 1").build());
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("exportUser").firstname("second").build());
+        getContactBookEntity("test");
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/export?format=CSV")
+                )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("Content-Disposition", "attachment; filename=\"contact-books.csv\""))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("id,firstname,lastname,phone,email,address", lines[0]);
+        assertTrue(lines[1].endsWith(",first,,,,\"Main Street, 1\""));
+    }
+
+    @Test
+    @DisplayName("Get all contact books matches every search param in its own field")
+    @WithMockUser(username = "fieldUser", authorities = {"CONTACT_BOOK_READ"})
+    void getAllContactBooks_when_success_per_field() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("fieldUser").firstname("Mainz").lastname("Ćorić").address("Main Street 1").build());
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("fieldUser").firstname("Street").lastname("Main").address("Main Avenue 2").build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book")
+                        .param("firstname", "MAIN")
+                        .param("lastname", "cor")
+                        .param("address", "street")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].firstname").value("Mainz"));
+    }
+
+    @Test
+    @DisplayName("Get all contact books by normalized phone")
+    @WithMockUser(username = "phoneUser", authorities = {"CONTACT_BOOK_READ"})
+    void getAllContactBooks_when_success_by_phone() throws Exception {
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("phoneUser").firstname("test").phone("+995 555 12-34-56").build());
+        mongoOperations.save(ContactBookEntity.builder().ownerUserId("phoneUser").firstname("test").phone("599 00 34 56").build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book")
+                        .param("phone", "995555123456")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].phone").value("+995 555 12-34-56"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book")
+                        .param("phoneSuffix", "34 56")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("Sync contact books downloads all of them page by page")
+    @WithMockUser(username = "sync", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void syncContactBooks_when_success() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            getContactBookEntity("sync");
+        }
+
+        JsonNode first = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/sync")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changed.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hasMore").value(true))
+                .andReturn().getResponse().getContentAsString());
+        JsonNode second = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/sync")
+                        .param("size", "2")
+                        .param("token", first.get("token").asText()))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changed.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.hasMore").value(false))
+                .andReturn().getResponse().getContentAsString());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/contact-book/sync")
+                        .param("token", second.get("token").asText()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted").isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reset").value(false));
+    }
+
+    @Test
+    @DisplayName("Typeahead contact books when success")
+    @WithMockUser(username = "typeaheadUser", authorities = {"CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"})
+    void typeahead_when_success() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/contact-book")
+                        .content(objectMapper.writeValueAsString(ContactBookParam.builder().firstname("Dimitri").lastname("Kvirikashvili").phone("+995 555 12 34 56").email("test").address("test").build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/typeahead?q=dim kvi")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].firstname").value("Dimitri"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/typeahead?q=5123")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/contact-book/typeahead?q=imi")
+                        .accept(MediaType.APPLICATION_JSON)
+                )
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(0));
+    }
+
+
     private ContactBookEntity getContactBookEntity(String user) {
         return mongoOperations.save(ContactBookEntity.builder()
                 .ownerUserId(user)
@@ -0,0 +1,288 @@
+package git.dimitrikvirik.contactbook.controller;
+
+import git.dimitrikvirik.contactbook.model.entity.ContactBookEntity;
+import git.dimitrikvirik.contactbook.model.param.ContactBookParam;
+import git.dimitrikvirik.contactbook.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.mongo.AutoConfigureDataMongo;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@AutoConfigureDataMongo
+@SpringBootTest(
+        properties = {
+                "de.flapdoodle.mongodb.embedded.version=5.0.5",
+                "spring.main.web-application-type=reactive"
+        }
+)
+@ActiveProfiles("reactive")
+@EnableAutoConfiguration
+@AutoConfigureWebTestClient
+class ReactiveContactBookControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Test
+    @DisplayName("Add contact book when unauthorized")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void addContactBook_when_unauthorized() {
+        webTestClient.post()
+                .uri("/api/contact-book")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("test"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Add contact book when success")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void addContactBook_when_success() {
+        webTestClient.post()
+                .uri("/api/contact-book")
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("test"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").exists()
+                .jsonPath("$.ownerUserId").isEqualTo("test")
+                .jsonPath("$.firstname").isEqualTo("test")
+                .jsonPath("$.phone").isEqualTo("test");
+    }
+
+    @Test
+    @DisplayName("Get contact book by id")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getContactBookById_when_success() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test");
+
+        webTestClient.get()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(contactBookEntity.getId())
+                .jsonPath("$.firstname").isEqualTo("test");
+    }
+
+    @Test
+    @DisplayName("Get contact book by id when not found")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getContactBookById_when_not_found() {
+        webTestClient.get()
+                .uri("/api/contact-book/123")
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Get contact book by id when not mine")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getContactBookById_when_not_mine() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test2");
+
+        webTestClient.get()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("Update contact book when success")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void updateContactBook_when_success() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test");
+
+        webTestClient.put()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("updated"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(contactBookEntity.getId())
+                .jsonPath("$.firstname").isEqualTo("updated");
+
+        webTestClient.get()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstname").isEqualTo("updated");
+    }
+
+    @Test
+    @DisplayName("Update contact book when not mine")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void updateContactBook_when_not_mine() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test2");
+
+        webTestClient.put()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("updated"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("Get contact book by id when not modified and update with stale ETag")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getContactBookById_when_not_modified() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test");
+        String id = contactBookEntity.getId();
+
+        webTestClient.get()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+        webTestClient.get()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+        webTestClient.put()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("updated"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.put()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(contactBookParam("stale"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.delete()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.get()
+                .uri("/api/contact-book/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstname").isEqualTo("updated")
+                .jsonPath("$.version").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Delete contact book by id when success")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void deleteContactBookById_when_success() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test");
+
+        webTestClient.delete()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isNoContent();
+        assertNull(mongoOperations.findById(contactBookEntity.getId(), ContactBookEntity.class));
+    }
+
+    @Test
+    @DisplayName("Delete contact book by id when not mine")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void deleteContactBookById_when_not_mine() {
+        ContactBookEntity contactBookEntity = getContactBookEntity("test2");
+
+        webTestClient.delete()
+                .uri("/api/contact-book/" + contactBookEntity.getId())
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("Delete contact book by id when not found")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void deleteContactBookById_when_not_found() {
+        webTestClient.delete()
+                .uri("/api/contact-book/123")
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Get all contact books")
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+    void getAllContactBooks_when_success() {
+        getContactBookEntity("test");
+        getContactBookEntity("test2");
+
+        webTestClient.get()
+                .uri("/api/contact-book")
+                .header(HttpHeaders.AUTHORIZATION, bearer("test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content[0].firstname").isEqualTo("test");
+    }
+
+    private String bearer(String userId) {
+        Claims claims = Jwts.claims();
+        claims.put("username", userId);
+        claims.put("scopes", List.of("CONTACT_BOOK_READ", "CONTACT_BOOK_WRITE"));
+        return JwtTokenUtil.BEARER_PREFIX + jwtTokenUtil.doGenerateToken(claims, userId);
+    }
+
+    private static ContactBookParam contactBookParam(String firstname) {
+        return ContactBookParam.builder().firstname(firstname).lastname("test").phone("test").email("test").address("test").build();
+    }
+
+    private ContactBookEntity getContactBookEntity(String user) {
+        return mongoOperations.save(ContactBookEntity.builder()
+                .ownerUserId(user)
+                .firstname("test")
+                .lastname("test")
+                .phone("test")
+                .email("test")
+                .address("test")
+                .build());
+    }
+}
@@ -0,0 +1,103 @@
+package git.dimitrikvirik.contactbook.service;
+
+import git.dimitrikvirik.contactbook.model.dto.ContactBookDTO;
+import git.dimitrikvirik.contactbook.model.enums.ContactBookCachePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContactBookCacheTest {
+
+    private static final String ID = "64b7f0c2e4b0a1a2b3c4d5e6";
+
+    private static final String OWNER = "test";
+
+    @ParameterizedTest
+    @EnumSource(value = ContactBookCachePolicy.class, names = {"TINY_LFU", "LRU"})
+    @DisplayName("A contact book loaded before a write is not cached")
+    void get_when_written_during_load(ContactBookCachePolicy policy) {
+        ContactBookCache cache = cache(policy);
+        ContactBookDTO previous = contactBook(0L);
+
+        ContactBookDTO loaded = cache.get(ID, OWNER, id -> {
+            cache.invalidate(id);
+            return previous;
+        });
+
+        assertEquals(previous, loaded);
+        assertNull(cache.getIfPresent(ID, OWNER));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ContactBookCachePolicy.class, names = {"TINY_LFU", "LRU"})
+    @DisplayName("A contact book loaded before a write is never read after the write returned")
+    void getIfPresent_after_write_during_load(ContactBookCachePolicy policy) throws Exception {
+        ExecutorService readers = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                ContactBookCache cache = cache(policy);
+                ContactBookDTO previous = contactBook((long) i);
+                CountDownLatch loading = new CountDownLatch(1);
+                CountDownLatch written = new CountDownLatch(1);
+
+                Future<ContactBookDTO> reader = readers.submit(() -> cache.get(ID, OWNER, id -> {
+                    loading.countDown();
+                    await(written);
+                    return previous;
+                }));
+                await(loading);
+                // the write reached Mongo and returns while the reader still holds the previous version
+                cache.invalidate(ID);
+                written.countDown();
+                while (!reader.isDone()) {
+                    assertNotSame(previous, cache.getIfPresent(ID, OWNER));
+                }
+                assertNull(cache.getIfPresent(ID, OWNER));
+                assertEquals(previous, reader.get());
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private static ContactBookCache cache(ContactBookCachePolicy policy) {
+        return new ContactBookCache(policy, 1000, DataSize.ofMegabytes(1), Duration.ofMinutes(10), new SimpleMeterRegistry());
+    }
+
+    private static ContactBookDTO contactBook(Long version) {
+        return ContactBookDTO.builder()
+                .id(ID)
+                .ownerUserId(OWNER)
+                .firstname("test")
+                .lastname("test")
+                .phone("test")
+                .email("test")
+                .address("test")
+                .version(version)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}